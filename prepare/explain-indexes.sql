@@ -0,0 +1,66 @@
+/*
+Query plans for the lookups covered by src/main/resources/db/changelog/002-indexes.sql.
+
+Run against a scratch copy of hot_search migrated to 001-schema only, e.g.
+    mysql -uroot -p hot_search < explain-indexes.sql
+It fills the tables with 10k users, 100k events and 2M votes (every user votes once for each of
+the first 200 events), explains and times each query, then creates the indexes of 002 and does
+the same again. The data matches IndexBenchmark.
+
+No output of it is checked in: the plans described below are what the indexes are meant to give,
+not a recorded run. Keep the output of both passes when comparing servers or schema changes.
+*/
+
+SET @users = 10000, @events = 100000, @votes = 2000000;
+
+DROP TABLE IF EXISTS seq;
+CREATE TABLE seq (n INT NOT NULL PRIMARY KEY) ENGINE=InnoDB;
+INSERT INTO seq VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9);
+INSERT INTO seq SELECT a.n + 10 * b.n FROM seq a, seq b WHERE a.n + 10 * b.n >= 10;
+INSERT INTO seq SELECT a.n + 100 * b.n FROM seq a, seq b WHERE b.n BETWEEN 1 AND 99;
+INSERT INTO seq SELECT a.n + 10000 * b.n FROM seq a, seq b WHERE b.n BETWEEN 1 AND 199;
+
+INSERT INTO user (id, name, gender, age, email, phone, vote_num)
+SELECT n + 1, CONCAT('user', n + 1), 'female', 20, 'a@b.com', '18888888888', 10 FROM seq WHERE n < @users;
+INSERT INTO rs_event (id, event_name, keyword, vote_num, user_id)
+SELECT n + 1, CONCAT('event', n + 1), 'keyword', MOD((n + 1) * 7919, 100000), MOD(n + 1, @users) + 1
+FROM seq WHERE n < @events;
+INSERT INTO vote (id, local_date_time, num, user_id, rs_event_id)
+SELECT n + 1, NOW(), 1, MOD(n, @users) + 1, FLOOR(n / @users) + 1 FROM seq WHERE n < @votes;
+INSERT INTO rank (id, price, rank_pos, rs_event_id) SELECT n, 10, n, n * 1000 FROM seq WHERE n BETWEEN 1 AND 20;
+ANALYZE TABLE user, rs_event, vote, rank;
+
+-- before: only the indexes InnoDB created for the foreign keys
+
+-- VoteRepository.findAllByUserIdAndRsEventId
+EXPLAIN SELECT * FROM vote WHERE user_id = 4242 AND rs_event_id = 17 LIMIT 5;
+SELECT SQL_NO_CACHE id FROM vote WHERE user_id = 4242 AND rs_event_id = 17 LIMIT 5;
+-- RsEventRepository.findUnpinnedAfter
+EXPLAIN SELECT id, vote_num FROM rs_event WHERE id NOT IN (SELECT rs_event_id FROM rank)
+    AND vote_num <= 50000 AND (vote_num < 50000 OR id > 0) ORDER BY vote_num DESC, id ASC LIMIT 10;
+SELECT SQL_NO_CACHE id, vote_num FROM rs_event WHERE id NOT IN (SELECT rs_event_id FROM rank)
+    AND vote_num <= 50000 AND (vote_num < 50000 OR id > 0) ORDER BY vote_num DESC, id ASC LIMIT 10;
+-- RankRepository.findRankDtoByRankPos
+EXPLAIN SELECT * FROM rank WHERE rank_pos = 7;
+
+ALTER TABLE rank ADD CONSTRAINT uk_rank_rank_pos UNIQUE (rank_pos);
+CREATE INDEX idx_rank_rs_event ON rank (rs_event_id);
+CREATE INDEX idx_rank_record_rs_event ON rank_record (rs_event_id);
+CREATE INDEX idx_rs_event_vote_num ON rs_event (vote_num, id);
+CREATE INDEX idx_vote_user_event ON vote (user_id, rs_event_id, id);
+CREATE INDEX idx_vote_event ON vote (rs_event_id, id);
+ANALYZE TABLE rs_event, vote, rank;
+
+-- expected after: ref on idx_vote_user_event with both columns instead of scanning a user's votes,
+-- a range on idx_rs_event_vote_num instead of a full scan and filesort (before MySQL 8 the
+-- mixed desc/asc order still sorts, but only the rows of the range), const on uk_rank_rank_pos
+
+EXPLAIN SELECT * FROM vote WHERE user_id = 4242 AND rs_event_id = 17 LIMIT 5;
+SELECT SQL_NO_CACHE id FROM vote WHERE user_id = 4242 AND rs_event_id = 17 LIMIT 5;
+EXPLAIN SELECT id, vote_num FROM rs_event WHERE id NOT IN (SELECT rs_event_id FROM rank)
+    AND vote_num <= 50000 AND (vote_num < 50000 OR id > 0) ORDER BY vote_num DESC, id ASC LIMIT 10;
+SELECT SQL_NO_CACHE id, vote_num FROM rs_event WHERE id NOT IN (SELECT rs_event_id FROM rank)
+    AND vote_num <= 50000 AND (vote_num < 50000 OR id > 0) ORDER BY vote_num DESC, id ASC LIMIT 10;
+EXPLAIN SELECT * FROM rank WHERE rank_pos = 7;
+
+DROP TABLE seq;
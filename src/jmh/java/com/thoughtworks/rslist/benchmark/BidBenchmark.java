@@ -0,0 +1,63 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.service.HistoryWriter;
+import com.thoughtworks.rslist.service.RankAuction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bid resolution in {@link RankAuction} with eight threads bidding rising prices on either a single
+ * contested rank or spread across many, against in-memory repositories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class BidBenchmark {
+    private static final int EVENTS = 100_000;
+
+    @Param({"1", "64"})
+    int ranks;
+
+    private final AtomicInteger price = new AtomicInteger();
+    private RankAuction rankAuction;
+
+    @Setup
+    public void setUp() {
+        InMemoryStore store = new InMemoryStore();
+        for (int id = 1; id <= EVENTS; id++) {
+            store.addEvent(id, 0, 1);
+        }
+        PlatformTransactionManager transactionManager = InMemoryStore.transactionManager();
+        HistoryWriter historyWriter = new HistoryWriter(store.voteRepository(), store.rankRecordRepository(),
+                transactionManager, "sync", 1, 1, 0, 0);
+        rankAuction = new RankAuction(store.rsEventRepository(), store.rankRepository(), historyWriter,
+                event -> { }, transactionManager, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public boolean bid() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            rankAuction.bid(new Trade(price.incrementAndGet(), 1 + random.nextInt(ranks)), 1 + random.nextInt(EVENTS));
+            return true;
+        } catch (RequestNotValidException e) {
+            return false;
+        }
+    }
+}
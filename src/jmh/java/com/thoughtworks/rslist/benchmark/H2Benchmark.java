@@ -0,0 +1,137 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.RsListApplication;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.domain.VoteResult;
+import com.thoughtworks.rslist.service.BatchVoteService;
+import com.thoughtworks.rslist.service.RsEventRanking;
+import com.thoughtworks.rslist.service.RsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The same hot paths end to end through Spring, JPA and an in-memory H2 database, to show how much
+ * of the cost is persistence rather than the ranking and auction logic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class H2Benchmark {
+    private static final int USERS = 1000;
+    private static final int EVENTS = 1000;
+    private static final int BATCH = 1000;
+
+    @Param({"direct", "atomic"})
+    String voteMode;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private final AtomicInteger price = new AtomicInteger();
+    private final List<Integer> userIds = new ArrayList<>();
+    private final List<Integer> eventIds = new ArrayList<>();
+    private ConfigurableApplicationContext context;
+    private RsService rsService;
+    private BatchVoteService batchVoteService;
+    private RsEventRanking rsEventRanking;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(RsListApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.liquibase.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--rs.vote.mode=" + voteMode,
+                        "--rs.vote.write-behind.journal-dir=" + Files.createTempDirectory("vote-journal"));
+        rsService = context.getBean(RsService.class);
+        batchVoteService = context.getBean(BatchVoteService.class);
+        rsEventRanking = context.getBean(RsEventRanking.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        RsEventRepository rsEventRepository = context.getBean(RsEventRepository.class);
+        for (int i = 0; i < USERS; i++) {
+            userIds.add(userRepository.save(UserDto.builder().userName("user" + i).gender("female").age(20)
+                    .email("a@b.com").phone("18888888888").voteNum(Integer.MAX_VALUE).build()).getId());
+        }
+        UserDto owner = userRepository.findById(userIds.get(0)).get();
+        for (int i = 0; i < EVENTS; i++) {
+            eventIds.add(rsEventRepository.save(RsEventDto.builder().eventName("event" + i).keyword("keyword")
+                    .voteNum(0).user(owner).build()).getId());
+        }
+        rsEventRanking.reload();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void vote() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Vote vote = Vote.builder().userId(userIds.get(random.nextInt(USERS))).voteNum(1).time(now).build();
+        rsService.vote(vote, eventIds.get(random.nextInt(10)));
+    }
+
+    /** Scored per vote, so it compares directly with {@link #vote()}. */
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(BATCH)
+    public List<VoteResult> voteBatch() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Vote> votes = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            votes.add(Vote.builder().userId(userIds.get(random.nextInt(USERS)))
+                    .rsEventId(eventIds.get(random.nextInt(10))).voteNum(1).time(now).build());
+        }
+        return batchVoteService.vote(votes);
+    }
+
+    @Benchmark
+    public List<RsEvent> voteThenList() {
+        vote();
+        return rsEventRanking.list();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean bid() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            rsService.buy(new Trade(price.incrementAndGet(), 1 + random.nextInt(8)),
+                    eventIds.get(10 + random.nextInt(EVENTS - 10)));
+            return true;
+        } catch (RuntimeException e) {
+            // outbid, or the event was already displaced from another rank
+            return false;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.util.IntIntMap;
+import com.thoughtworks.rslist.util.IntObjectMap;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap kept by the id maps of the ranking for a given number of events: one map from event id to
+ * the event's record, as {@code events} in {@code RsEventRanking}, and one from event id to an
+ * int, as the pins, the broadcaster's positions and the vote rate rows. Every entry shares one
+ * record, so only the maps themselves are counted.
+ *
+ * <p>{@code retainedBytes} is the used heap after building minus before, each taken after a full
+ * GC, so it is an estimate; the score is the time to build both maps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class IdMapBenchmark {
+    private static final Object RECORD = new Object();
+
+    @Param({"100000", "1000000"})
+    int events;
+
+    @Param({"boxed", "primitive"})
+    String maps;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedBytes;
+    }
+
+    @Benchmark
+    public Object build(Footprint footprint) {
+        long before = usedHeap();
+        Object[] built = "boxed".equals(maps) ? boxed() : primitive();
+        footprint.retainedBytes = usedHeap() - before;
+        return built;
+    }
+
+    private Object[] boxed() {
+        Map<Integer, Object> records = new HashMap<>();
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int id = 1; id <= events; id++) {
+            records.put(id, RECORD);
+            positions.put(id, id);
+        }
+        return new Object[]{records, positions};
+    }
+
+    private Object[] primitive() {
+        IntObjectMap<Object> records = new IntObjectMap<>();
+        IntIntMap positions = new IntIntMap(0);
+        for (int id = 1; id <= events; id++) {
+            records.put(id, RECORD);
+            positions.put(id, id);
+        }
+        return new Object[]{records, positions};
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
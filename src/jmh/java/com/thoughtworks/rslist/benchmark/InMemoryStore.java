@@ -0,0 +1,216 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.dto.RankDto;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.RsEventSummaryDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.UserSummaryDto;
+import com.thoughtworks.rslist.repository.RankRecordRepository;
+import com.thoughtworks.rslist.repository.RankRepository;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteJournalCheckpointRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Map-backed stand-ins for the repositories, so the benchmarks can measure the ranking, vote and
+ * auction logic without a database. Only the methods those paths call are implemented; anything
+ * else throws.
+ */
+class InMemoryStore {
+    final Map<Integer, RsEventSummaryDto> events = new ConcurrentHashMap<>();
+    final Map<Integer, AtomicInteger> eventVotes = new ConcurrentHashMap<>();
+    final Map<Integer, AtomicInteger> balances = new ConcurrentHashMap<>();
+    final Map<Integer, RankDto> ranks = new ConcurrentHashMap<>();
+    final LongAdder historyRows = new LongAdder();
+
+    void addUser(int id, int voteNum) {
+        balances.put(id, new AtomicInteger(voteNum));
+    }
+
+    void addEvent(int id, int voteNum, int userId) {
+        events.put(id, new RsEventSummaryDto(id, "event " + id, "keyword", voteNum, userId));
+        eventVotes.put(id, new AtomicInteger(voteNum));
+    }
+
+    void addRank(int rankPos, int rsEventId, int price) {
+        ranks.put(rankPos, RankDto.builder().id(rankPos).rankPos(rankPos).rsEventId(rsEventId).price(price).build());
+    }
+
+    RsEventRepository rsEventRepository() {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("findAllSummaries", args -> new ArrayList<>(events.values()));
+        methods.put("findById", args -> {
+            RsEventSummaryDto summary = events.get((Integer) args[0]);
+            return summary == null ? Optional.empty() : Optional.of(RsEventDto.builder().id(summary.getId())
+                    .eventName(summary.getEventName()).keyword(summary.getKeyword())
+                    .voteNum(eventVotes.get(summary.getId()).get()).build());
+        });
+        methods.put("save", args -> {
+            RsEventDto rsEventDto = (RsEventDto) args[0];
+            eventVotes.get(rsEventDto.getId()).set(rsEventDto.getVoteNum());
+            return rsEventDto;
+        });
+        methods.put("increaseVoteNum", args -> {
+            AtomicInteger votes = eventVotes.get((Integer) args[0]);
+            if (votes == null) {
+                return 0;
+            }
+            votes.addAndGet((Integer) args[1]);
+            return 1;
+        });
+        methods.put("existsById", args -> events.containsKey((Integer) args[0]));
+        methods.put("findExistingIds", args -> {
+            List<Integer> existing = new ArrayList<>();
+            for (Object id : (Iterable<?>) args[0]) {
+                if (events.containsKey((Integer) id)) {
+                    existing.add((Integer) id);
+                }
+            }
+            return existing;
+        });
+        methods.put("deleteById", args -> {
+            events.remove((Integer) args[0]);
+            eventVotes.remove((Integer) args[0]);
+            return null;
+        });
+        return proxy(RsEventRepository.class, methods);
+    }
+
+    UserRepository userRepository() {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("findById", args -> {
+            AtomicInteger balance = balances.get((Integer) args[0]);
+            return balance == null ? Optional.empty()
+                    : Optional.of(UserDto.builder().id((Integer) args[0]).voteNum(balance.get()).build());
+        });
+        methods.put("findSummaryById", args -> {
+            AtomicInteger balance = balances.get((Integer) args[0]);
+            return balance == null ? Optional.empty()
+                    : Optional.of(new UserSummaryDto((Integer) args[0], "user " + args[0], balance.get()));
+        });
+        methods.put("save", args -> {
+            UserDto userDto = (UserDto) args[0];
+            balances.get(userDto.getId()).set(userDto.getVoteNum());
+            return userDto;
+        });
+        methods.put("decreaseVoteNum", args -> {
+            balances.get((Integer) args[0]).addAndGet(-(Integer) args[1]);
+            return 1;
+        });
+        methods.put("decreaseVoteNumIfEnough", args -> {
+            AtomicInteger balance = balances.get((Integer) args[0]);
+            int num = (Integer) args[1];
+            while (balance != null) {
+                int current = balance.get();
+                if (current < num) {
+                    return 0;
+                }
+                if (balance.compareAndSet(current, current - num)) {
+                    return 1;
+                }
+            }
+            return 0;
+        });
+        return proxy(UserRepository.class, methods);
+    }
+
+    RankRepository rankRepository() {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("findAll", args -> new ArrayList<>(ranks.values()));
+        methods.put("findRankDtoByRankPos", args -> {
+            RankDto rankDto = ranks.get((Integer) args[0]);
+            return rankDto == null ? Optional.empty() : Optional.of(RankDto.builder().id(rankDto.getId())
+                    .rankPos(rankDto.getRankPos()).rsEventId(rankDto.getRsEventId()).price(rankDto.getPrice())
+                    .build());
+        });
+        methods.put("save", args -> {
+            RankDto rankDto = (RankDto) args[0];
+            ranks.put(rankDto.getRankPos(), rankDto);
+            return rankDto;
+        });
+        return proxy(RankRepository.class, methods);
+    }
+
+    RankRecordRepository rankRecordRepository() {
+        return proxy(RankRecordRepository.class, historyMethods());
+    }
+
+    VoteRepository voteRepository() {
+        return proxy(VoteRepository.class, historyMethods());
+    }
+
+    VoteJournalCheckpointRepository checkpointRepository() {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("findById", args -> Optional.empty());
+        methods.put("save", args -> args[0]);
+        return proxy(VoteJournalCheckpointRepository.class, methods);
+    }
+
+    static PlatformTransactionManager transactionManager() {
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+    }
+
+    private Map<String, Function<Object[], Object>> historyMethods() {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("save", args -> {
+            historyRows.increment();
+            return args[0];
+        });
+        methods.put("saveAll", args -> {
+            List<Object> saved = new ArrayList<>();
+            ((Iterable<?>) args[0]).forEach(saved::add);
+            historyRows.add(saved.size());
+            return saved;
+        });
+        return methods;
+    }
+
+    private static <R> R proxy(Class<R> type, Map<String, Function<Object[], Object>> methods) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return type.getSimpleName() + " (in memory)";
+                }
+            }
+            Function<Object[], Object> body = methods.get(method.getName());
+            if (body == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+            return body.apply(args);
+        }));
+    }
+}
@@ -0,0 +1,109 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.RsListApplication;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventSummaryDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The repository lookups that the indexes of {@code db/changelog/002-indexes.sql} are for, against
+ * two million votes in a file-backed H2 database, with and without those indexes. Without them
+ * only the indexes H2 creates for the foreign keys are left, as MySQL would.
+ * {@code prepare/explain-indexes.sql} explains and times the same queries against MySQL. Neither has
+ * recorded results in the repository; run {@code ./gradlew jmh -Pjmh.include=IndexBenchmark} for the
+ * numbers of both settings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IndexBenchmark {
+    private static final int USERS = 10_000;
+    private static final int EVENTS = 100_000;
+    private static final int HOT = 200;
+    private static final int VOTES = USERS * HOT;
+
+    @Param({"false", "true"})
+    boolean indexed;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private VoteRepository voteRepository;
+    private RsEventRepository rsEventRepository;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("index-benchmark");
+        context = new SpringApplicationBuilder(RsListApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:file:" + directory.resolve("db") + ";MODE=MySQL;CACHE_SIZE=262144",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.liquibase.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create");
+        voteRepository = context.getBean(VoteRepository.class);
+        rsEventRepository = context.getBean(RsEventRepository.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        if (!indexed) {
+            jdbc.execute("drop index idx_vote_user_event");
+            jdbc.execute("drop index idx_vote_user_event_time");
+            jdbc.execute("drop index idx_vote_event");
+            jdbc.execute("drop index idx_rs_event_vote_num");
+            jdbc.execute("drop index idx_rank_rs_event");
+        }
+        jdbc.execute("insert into user (id, name, gender, age, email, phone, vote_num) "
+                + "select x, 'user' || x, 'female', 20, 'a@b.com', '18888888888', 10 from system_range(1, " + USERS + ")");
+        jdbc.execute("insert into rs_event (id, event_name, keyword, vote_num, user_id) "
+                + "select x, 'event' || x, 'keyword', mod(x * 7919, 100000), mod(x, " + USERS + ") + 1 "
+                + "from system_range(1, " + EVENTS + ")");
+        // every user votes once for each of the HOT events, which get USERS votes apiece
+        jdbc.execute("insert into vote (id, local_date_time, num, user_id, rs_event_id) "
+                + "select x + 1, current_timestamp, 1, mod(x, " + USERS + ") + 1, x / " + USERS + " + 1 "
+                + "from system_range(0, " + (VOTES - 1) + ")");
+        jdbc.execute("insert into rank (id, price, rank_pos, rs_event_id) "
+                + "select x, 10, x, x * 1000 from system_range(1, 20)");
+        jdbc.execute("analyze");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<Vote> voteRecordPage() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return voteRepository.findAllByUserIdAndRsEventId(1 + random.nextInt(USERS), 1 + random.nextInt(HOT),
+                PageRequest.of(0, 5));
+    }
+
+    @Benchmark
+    public List<RsEventSummaryDto> unpinnedPageAfter() {
+        int voteNum = ThreadLocalRandom.current().nextInt(100_000);
+        return rsEventRepository.findUnpinnedAfter(voteNum, 0, PageRequest.of(0, 10));
+    }
+}
@@ -0,0 +1,78 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.event.RsEventVotedEvent;
+import com.thoughtworks.rslist.service.RsEventRanking;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of assembling {@code /rs/list} and looking up {@code /rs/{index}} from the in-memory
+ * ranking, with a vote between reads so every read sees a changed ranking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RankingBenchmark {
+    private static final int PINS = 20;
+
+    @Param({"1000", "100000", "1000000"})
+    int events;
+
+    private final Random random = new Random(7);
+    private final LocalDateTime now = LocalDateTime.now();
+    private RsEventRanking ranking;
+
+    @Setup
+    public void setUp() {
+        InMemoryStore store = new InMemoryStore();
+        for (int id = 1; id <= events; id++) {
+            store.addEvent(id, random.nextInt(10_000), id % 100);
+        }
+        for (int i = 1; i <= PINS; i++) {
+            store.addRank(i * 5, i * (events / PINS), 10);
+        }
+        ranking = new RsEventRanking(store.rsEventRepository(), store.rankRepository(),
+                new SimpleMeterRegistry());
+        ranking.list();
+    }
+
+    @Benchmark
+    public List<RsEvent> cachedList() {
+        return ranking.list();
+    }
+
+    @Benchmark
+    public List<RsEvent> voteThenPage() {
+        vote();
+        return ranking.list().subList(0, 10);
+    }
+
+    @Benchmark
+    public List<RsEvent> voteThenTop() {
+        vote();
+        return ranking.top(50);
+    }
+
+    @Benchmark
+    public RsEvent voteThenIndex() {
+        vote();
+        return ranking.get(1 + random.nextInt(events));
+    }
+
+    private void vote() {
+        ranking.onRsEventVoted(new RsEventVotedEvent(1 + random.nextInt(events), 1, 1, now));
+    }
+}
@@ -0,0 +1,95 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.event.RsEventVotedEvent;
+import com.thoughtworks.rslist.service.HistoryWriter;
+import com.thoughtworks.rslist.service.RankAuction;
+import com.thoughtworks.rslist.service.RsService;
+import com.thoughtworks.rslist.service.UserCache;
+import com.thoughtworks.rslist.service.VoteWriteBehindBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vote ingestion through {@link RsService#vote} with eight threads voting on a handful of hot
+ * events, against in-memory repositories, for each {@code rs.vote.mode}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class VoteBenchmark {
+    private static final int USERS = 1000;
+    private static final int HOT_EVENTS = 10;
+
+    @Param({"direct", "atomic", "write-behind"})
+    String voteMode;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private VoteWriteBehindBuffer buffer;
+    private RsService rsService;
+
+    @Setup
+    public void setUp() throws Exception {
+        InMemoryStore store = new InMemoryStore();
+        for (int id = 1; id <= USERS; id++) {
+            store.addUser(id, Integer.MAX_VALUE);
+        }
+        for (int id = 1; id <= HOT_EVENTS; id++) {
+            store.addEvent(id, 0, 1);
+        }
+        PlatformTransactionManager transactionManager = InMemoryStore.transactionManager();
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        buffer = new VoteWriteBehindBuffer(store.rsEventRepository(), store.userRepository(), store.voteRepository(),
+                store.checkpointRepository(), transactionManager, voteMode,
+                Files.createTempDirectory("vote-journal").toString(), "benchmark");
+        buffer.start();
+        HistoryWriter historyWriter = new HistoryWriter(store.voteRepository(), store.rankRecordRepository(),
+                transactionManager, "sync", 1, 1, 0, 0);
+        RankAuction rankAuction = new RankAuction(store.rsEventRepository(), store.rankRepository(), historyWriter,
+                event -> { }, transactionManager, meterRegistry);
+        UserCache userCache = new UserCache(store.userRepository(), USERS, 300, meterRegistry);
+        rsService = new RsService(store.rsEventRepository(), store.userRepository(), historyWriter, event -> {
+            if (event instanceof RsEventVotedEvent) {
+                userCache.onRsEventVoted((RsEventVotedEvent) event);
+            }
+        }, buffer, rankAuction, userCache, meterRegistry);
+        rsService.setVoteMode(voteMode);
+    }
+
+    @TearDown(Level.Iteration)
+    public void flush() {
+        if (buffer.isEnabled()) {
+            buffer.flush();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        buffer.stop();
+    }
+
+    @Benchmark
+    public void vote() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Vote vote = Vote.builder().userId(1 + random.nextInt(USERS)).voteNum(1).time(now).build();
+        rsService.vote(vote, 1 + random.nextInt(HOT_EVENTS));
+    }
+}
@@ -0,0 +1,57 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.exception.Error;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.service.ReactiveReadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-only counterparts of the list, index and vote record endpoints that return publishers.
+ * Requested as {@code application/stream+json} the elements are written one per line as they are
+ * emitted, with the subscriber's demand driven by how fast the client reads; as
+ * {@code application/json} they are collected into an array first.
+ */
+@RestController
+@RequestMapping("/reactive")
+public class ReactiveController {
+    @Autowired
+    ReactiveReadService reactiveReadService;
+
+    @GetMapping(value = "/rs/list", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_STREAM_JSON_VALUE})
+    public Flux<RsEvent> getRsEventListBetween(@RequestParam(required = false) Integer start,
+                                               @RequestParam(required = false) Integer end) {
+        return reactiveReadService.list(start, end);
+    }
+
+    @GetMapping("/rs/{index}")
+    public Mono<RsEvent> getRsEvent(@PathVariable int index) {
+        return reactiveReadService.get(index);
+    }
+
+    @GetMapping(value = "/voteRecord", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_STREAM_JSON_VALUE})
+    public Flux<Vote> getVoteRecord(@RequestParam(required = false) Integer userId,
+                                    @RequestParam(required = false) Integer rsEventId) {
+        return reactiveReadService.votes(userId, rsEventId);
+    }
+
+    @ExceptionHandler(RequestNotValidException.class)
+    public ResponseEntity<Error> handleRequestErrorHandler(RequestNotValidException e) {
+        Error error = new Error();
+        error.setError(e.getMessage());
+        return ResponseEntity.badRequest().body(error);
+    }
+}
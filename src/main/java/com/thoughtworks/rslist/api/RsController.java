@@ -1,21 +1,32 @@
 package com.thoughtworks.rslist.api;
 
+import com.thoughtworks.rslist.domain.ImportResult;
 import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.RsEventPage;
 import com.thoughtworks.rslist.domain.Trade;
 import com.thoughtworks.rslist.domain.Vote;
-import com.thoughtworks.rslist.dto.RankDto;
+import com.thoughtworks.rslist.domain.VoteRate;
+import com.thoughtworks.rslist.domain.VoteResult;
 import com.thoughtworks.rslist.dto.RsEventDto;
 import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.event.RsEventAddedEvent;
 import com.thoughtworks.rslist.exception.Error;
 import com.thoughtworks.rslist.exception.RequestNotValidException;
 import com.thoughtworks.rslist.repository.RankRecordRepository;
 import com.thoughtworks.rslist.repository.RankRepository;
 import com.thoughtworks.rslist.repository.RsEventRepository;
-import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.service.BatchVoteService;
+import com.thoughtworks.rslist.service.ExportService;
+import com.thoughtworks.rslist.service.ImportService;
+import com.thoughtworks.rslist.service.RankingBroadcaster;
+import com.thoughtworks.rslist.service.RsEventRanking;
+import com.thoughtworks.rslist.service.RsPageService;
 import com.thoughtworks.rslist.service.RsService;
+import com.thoughtworks.rslist.service.UserCache;
+import com.thoughtworks.rslist.service.VoteRateAggregator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -24,13 +35,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.io.IOException;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @Validated
@@ -38,76 +49,90 @@ public class RsController {
     @Autowired
     RsEventRepository rsEventRepository;
     @Autowired
-    UserRepository userRepository;
-    @Autowired
     RsService rsService;
     @Autowired
     RankRepository rankRepository;
     @Autowired
     RankRecordRepository rankRecordRepository;
+    @Autowired
+    RsEventRanking rsEventRanking;
+    @Autowired
+    RankingBroadcaster rankingBroadcaster;
+    @Autowired
+    RsPageService rsPageService;
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+    @Autowired
+    ExportService exportService;
+    @Autowired
+    UserCache userCache;
+    @Autowired
+    BatchVoteService batchVoteService;
+    @Autowired
+    ImportService importService;
+    @Autowired
+    VoteRateAggregator voteRateAggregator;
 
     @GetMapping("/rs/list")
     public ResponseEntity<List<RsEvent>> getRsEventListBetween(
             @RequestParam(required = false) Integer start, @RequestParam(required = false) Integer end) {
-        List<RsEvent> rsEventDtoList =
-                rsEventRepository.findAll().stream()
-                        .map(
-                                item ->
-                                        RsEvent.builder()
-                                                .eventName(item.getEventName())
-                                                .keyword(item.getKeyword())
-                                                .userId(item.getId())
-                                                .voteNum(item.getVoteNum())
-                                                .build()).collect(Collectors.toList());
-//        List<RsEventDto> rsEventDtoList = rsEventRepository.findAll();
-
-        List<RankDto> rankDtoList = rankRepository.findAll();
-        List<RsEvent> sortRsEventDtoList = new ArrayList<>(rsEventDtoList.size());
-        for (int i = 0; i < rsEventDtoList.size(); i++) {
-            sortRsEventDtoList.add(null);
+        if (start == null || end == null) {
+            return ResponseEntity.ok(rsEventRanking.list());
         }
-        for(int i=0; i < rankDtoList.size(); i++){
-            RankDto rankDto = rankDtoList.get(i);
-            Optional<RsEventDto> rsEventOptional = rsEventRepository.findById(rankDto.getRsEventId());
-            RsEventDto rsEventDto = rsEventOptional.get();
-            sortRsEventDtoList.set(rankDto.getRankPos() - 1, RsEventDtoConvertRsEvent(rsEventDto));
-            rsEventDtoList.remove(rsEventDto);
+        if (start < 1 || start > end) {
+            throw new RequestNotValidException("invalid index");
         }
-        List<RsEvent> leftRsEventDtoSortList = rsEventDtoList.stream().sorted(Comparator.comparing(RsEvent::getVoteNum).reversed()).collect(Collectors.toList());
-        for (int i = 0; i < sortRsEventDtoList.size(); i++) {
-            if (sortRsEventDtoList.get(i) == null) {
-                sortRsEventDtoList.set(i, leftRsEventDtoSortList.remove(0));
-            }
+        // checked against the list actually sliced, which may be shorter than size() was a moment ago
+        List<RsEvent> top = rsEventRanking.top(end);
+        if (end > top.size()) {
+            throw new RequestNotValidException("invalid index");
         }
-        if (start == null || end == null) {
-            return ResponseEntity.ok(sortRsEventDtoList);
+        return ResponseEntity.ok(top.subList(start - 1, end));
+    }
+
+    @GetMapping("/rs/list/page")
+    public ResponseEntity<RsEventPage> getRsEventPage(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "1") int start,
+                                                      @RequestParam(defaultValue = "10") int size) {
+        if (cursor != null) {
+            return ResponseEntity.ok(rsPageService.pageAfter(cursor, size));
         }
-        return ResponseEntity.ok(sortRsEventDtoList.subList(start - 1, end));
-}
+        return ResponseEntity.ok(rsPageService.pageFrom(start, size));
+    }
+
+    @GetMapping("/rs/list/stream")
+    public ResponseEntity<StreamingResponseBody> streamRsEvents() {
+        return ResponseEntity.ok().contentType(ExportService.NDJSON).body(exportService::writeRsEvents);
+    }
+
+    @GetMapping("/rs/list/subscribe")
+    public SseEmitter subscribeRsEvents() {
+        return rankingBroadcaster.subscribe();
+    }
 
     @GetMapping("/rs/{index}")
     public ResponseEntity<RsEvent> getRsEvent(@PathVariable int index) {
-        List<RsEvent> rsEvents =
-                rsEventRepository.findAll().stream()
-                        .map(
-                                item ->
-                                        RsEvent.builder()
-                                                .eventName(item.getEventName())
-                                                .keyword(item.getKeyword())
-                                                .userId(item.getId())
-                                                .voteNum(item.getVoteNum())
-                                                .build())
-                        .collect(Collectors.toList());
-        if (index < 1 || index > rsEvents.size()) {
+        RsEvent rsEvent = rsEventRanking.get(index);
+        if (rsEvent == null) {
             throw new RequestNotValidException("invalid index");
         }
-        return ResponseEntity.ok(rsEvents.get(index - 1));
+        return ResponseEntity.ok(rsEvent);
+    }
+
+    @GetMapping("/rs/{id}/velocity")
+    public ResponseEntity<VoteRate> getVoteRate(@PathVariable int id) {
+        return ResponseEntity.ok(voteRateAggregator.rate(id));
+    }
+
+    @GetMapping("/rs/trending")
+    public ResponseEntity<List<VoteRate>> getTrending(@RequestParam(defaultValue = "5") int minutes,
+                                                      @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(voteRateAggregator.trending(minutes, limit));
     }
 
     @PostMapping("/rs/event")
     public ResponseEntity addRsEvent(@RequestBody @Valid RsEvent rsEvent) {
-        Optional<UserDto> userDto = userRepository.findById(rsEvent.getUserId());
-        if (!userDto.isPresent()) {
+        if (!userCache.exists(rsEvent.getUserId())) {
             return ResponseEntity.badRequest().build();
         }
         RsEventDto build =
@@ -115,20 +140,31 @@ public class RsController {
                         .keyword(rsEvent.getKeyword())
                         .eventName(rsEvent.getEventName())
                         .voteNum(0)
-                        .user(userDto.get())
+                        .user(UserDto.builder().id(rsEvent.getUserId()).build())
                         .build();
-        rsEventRepository.save(build);
+        RsEventDto saved = rsEventRepository.save(build);
+        eventPublisher.publishEvent(new RsEventAddedEvent(saved.getId(), saved.getEventName(),
+                saved.getKeyword(), saved.getVoteNum(), rsEvent.getUserId()));
         return ResponseEntity.created(null).build();
     }
 
+    @PostMapping("/rs/events/batch")
+    public ResponseEntity<ImportResult> addRsEvents(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(importService.importRsEvents(request.getInputStream()));
+    }
+
     @PostMapping("/rs/vote/{id}")
     public ResponseEntity vote(@PathVariable int id, @RequestBody Vote vote) {
         rsService.vote(vote, id);
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/rs/vote/batch")
+    public ResponseEntity<List<VoteResult>> voteBatch(@RequestBody List<Vote> votes) {
+        return ResponseEntity.ok(batchVoteService.vote(votes));
+    }
+
     @PostMapping("/rs/buy/{id}")
-    @Transactional
     public ResponseEntity buy(@PathVariable int id, @RequestBody Trade trade) throws Exception {
         try {
             rsService.buy(trade, id);
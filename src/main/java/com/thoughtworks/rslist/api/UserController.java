@@ -1,21 +1,33 @@
 package com.thoughtworks.rslist.api;
 
+import com.thoughtworks.rslist.domain.ImportResult;
 import com.thoughtworks.rslist.domain.User;
 import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.exception.Error;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
 import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.service.ImportService;
+import com.thoughtworks.rslist.service.UserCache;
+import com.thoughtworks.rslist.service.UserDeletionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 
 @RestController
 public class UserController {
   @Autowired UserRepository userRepository;
+  @Autowired UserCache userCache;
+  @Autowired ImportService importService;
+  @Autowired UserDeletionService userDeletionService;
 
   @PostMapping("/user")
   public void register(@RequestBody @Valid User user) {
@@ -26,12 +38,25 @@ public class UserController {
     userDto.setAge(user.getAge());
     userDto.setEmail(user.getEmail());
     userDto.setUserName(user.getUserName());
-    userRepository.save(userDto);
+    UserDto saved = userRepository.save(userDto);
+    userCache.invalidate(saved.getId());
+  }
+
+  @PostMapping("/users/batch")
+  public ResponseEntity<ImportResult> registerAll(HttpServletRequest request) throws IOException {
+    return ResponseEntity.ok(importService.importUsers(request.getInputStream()));
   }
 
   @DeleteMapping("/user/{id}")
   public ResponseEntity deleteUser(@PathVariable int id) {
-    userRepository.deleteById(id);
+    userDeletionService.delete(id);
     return ResponseEntity.ok().build();
   }
+
+  @ExceptionHandler(RequestNotValidException.class)
+  public ResponseEntity<Error> handleRequestErrorHandler(RequestNotValidException e) {
+    Error error = new Error();
+    error.setError(e.getMessage());
+    return ResponseEntity.badRequest().body(error);
+  }
 }
@@ -1,36 +1,56 @@
 package com.thoughtworks.rslist.api;
 
 import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.domain.VotePage;
+import com.thoughtworks.rslist.exception.Error;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
 import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.service.ExportService;
+import com.thoughtworks.rslist.service.VoteHistoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 public class VoteController {
   @Autowired VoteRepository voteRepository;
+  @Autowired ExportService exportService;
+  @Autowired VoteHistoryService voteHistoryService;
 
   @GetMapping("/voteRecord")
   public ResponseEntity<List<Vote>> getVoteRecord(
       @RequestParam int userId, @RequestParam int rsEventId, @RequestParam int pageIndex) {
     Pageable pageable = PageRequest.of(pageIndex - 1, 5);
-    return ResponseEntity.ok(
-        voteRepository.findAllByUserIdAndRsEventId(userId, rsEventId, pageable).stream()
-            .map(
-                item ->
-                    Vote.builder()
-                        .voteNum(item.getNum())
-                        .userId(item.getUser().getId())
-                        .time(item.getLocalDateTime())
-                        .rsEventId(item.getRsEvent().getId())
-                        .build())
-            .collect(Collectors.toList()));
+    return ResponseEntity.ok(voteRepository.findAllByUserIdAndRsEventId(userId, rsEventId, pageable));
+  }
+
+  @GetMapping("/voteRecord/page")
+  public ResponseEntity<VotePage> getVoteRecordPage(
+      @RequestParam int userId, @RequestParam int rsEventId,
+      @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "5") int size) {
+    return ResponseEntity.ok(voteHistoryService.pageAfter(userId, rsEventId, cursor, size));
+  }
+
+  @GetMapping("/voteRecord/stream")
+  public ResponseEntity<StreamingResponseBody> streamVoteRecord(
+      @RequestParam(required = false) Integer userId, @RequestParam(required = false) Integer rsEventId) {
+    return ResponseEntity.ok()
+        .contentType(ExportService.NDJSON)
+        .body(out -> exportService.writeVotes(userId, rsEventId, out));
+  }
+
+  @ExceptionHandler(RequestNotValidException.class)
+  public ResponseEntity<Error> handleRequestErrorHandler(RequestNotValidException e) {
+    Error error = new Error();
+    error.setError(e.getMessage());
+    return ResponseEntity.badRequest().body(error);
   }
 }
@@ -0,0 +1,37 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ImportResult {
+    public static final int MAX_REJECTIONS = 100;
+
+    private int imported;
+    private int rejected;
+    private List<Rejection> rejections = new ArrayList<>();
+
+    public void imported(int count) {
+        imported += count;
+    }
+
+    public void reject(int index, String reason) {
+        rejected++;
+        if (rejections.size() < MAX_REJECTIONS) {
+            rejections.add(new Rejection(index, reason));
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Rejection {
+        private int index;
+        private String reason;
+    }
+}
@@ -0,0 +1,57 @@
+package com.thoughtworks.rslist.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of a diff pushed to {@code /rs/list/subscribe}. Positions and vote counts are absolute
+ * values rather than deltas, so applying a change twice leaves the client's list the same.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RankingChange {
+    public static final String ADDED = "added";
+    public static final String REMOVED = "removed";
+    public static final String MOVED = "moved";
+    public static final String VOTED = "voted";
+    public static final String BOUGHT = "bought";
+
+    private String type;
+    private int rsEventId;
+    private Integer from;
+    private Integer to;
+    private Integer voteNum;
+    private String eventName;
+    private String keyword;
+    private Integer userId;
+    private Integer replacedRsEventId;
+
+    public static RankingChange added(int rsEventId, int position, RsEvent rsEvent) {
+        return RankingChange.builder().type(ADDED).rsEventId(rsEventId).to(position)
+                .voteNum(rsEvent.getVoteNum()).eventName(rsEvent.getEventName()).keyword(rsEvent.getKeyword())
+                .userId(rsEvent.getUserId()).build();
+    }
+
+    public static RankingChange removed(int rsEventId, int position) {
+        return RankingChange.builder().type(REMOVED).rsEventId(rsEventId).from(position).build();
+    }
+
+    public static RankingChange moved(int rsEventId, int from, int to, Integer voteNum) {
+        return RankingChange.builder().type(MOVED).rsEventId(rsEventId).from(from).to(to).voteNum(voteNum).build();
+    }
+
+    public static RankingChange voted(int rsEventId, int position, int voteNum) {
+        return RankingChange.builder().type(VOTED).rsEventId(rsEventId).to(position).voteNum(voteNum).build();
+    }
+
+    public static RankingChange bought(int rsEventId, int rankPos, Integer replacedRsEventId) {
+        return RankingChange.builder().type(BOUGHT).rsEventId(rsEventId).to(rankPos)
+                .replacedRsEventId(replacedRsEventId).build();
+    }
+}
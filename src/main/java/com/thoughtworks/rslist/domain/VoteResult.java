@@ -0,0 +1,24 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class VoteResult {
+    private int index;
+    private boolean accepted;
+    private String reason;
+
+    public static VoteResult accepted(int index) {
+        return new VoteResult(index, true, null);
+    }
+
+    public static VoteResult rejected(int index, String reason) {
+        return new VoteResult(index, false, reason);
+    }
+}
@@ -11,7 +11,9 @@ import javax.persistence.*;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "rank")
+@Table(name = "rank",
+        uniqueConstraints = @UniqueConstraint(name = "uk_rank_rank_pos", columnNames = "rankPos"),
+        indexes = @Index(name = "idx_rank_rs_event", columnList = "rsEventId"))
 public class RankDto {
     @Id
     @GeneratedValue
@@ -19,4 +21,6 @@ public class RankDto {
     private  int rankPos;
     private int price;
     private int rsEventId;
+    @Version
+    private Integer version;
 }
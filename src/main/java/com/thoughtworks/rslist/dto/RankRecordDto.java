@@ -12,10 +12,11 @@ import javax.persistence.*;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "rank_record")
+@Table(name = "rank_record", indexes = @Index(name = "idx_rank_record_rs_event", columnList = "rsEventId"))
 public class RankRecordDto {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rank_record_seq")
+    @SequenceGenerator(name = "rank_record_seq", sequenceName = "rank_record_seq", allocationSize = 100)
     private Integer id;
     private Integer rankPos;
     private Integer price;
@@ -0,0 +1,18 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RankedRsEventDto {
+    private int rankPos;
+    private int price;
+    private int rsEventId;
+    private String eventName;
+    private String keyword;
+    private int voteNum;
+    private int userId;
+}
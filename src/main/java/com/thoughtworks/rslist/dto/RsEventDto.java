@@ -7,8 +7,11 @@ import lombok.NoArgsConstructor;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
 @Entity
@@ -16,9 +19,12 @@ import javax.persistence.Table;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "rsEvent")
+@Table(name = "rsEvent", indexes = @Index(name = "idx_rs_event_vote_num", columnList = "voteNum, id"))
 public class RsEventDto {
-  @Id @GeneratedValue private int id;
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rs_event_seq")
+  @SequenceGenerator(name = "rs_event_seq", sequenceName = "rs_event_seq", allocationSize = 100)
+  private int id;
   private String eventName;
   private String keyword;
   private int voteNum;
@@ -0,0 +1,16 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RsEventSummaryDto {
+    private int id;
+    private String eventName;
+    private String keyword;
+    private int voteNum;
+    private int userId;
+}
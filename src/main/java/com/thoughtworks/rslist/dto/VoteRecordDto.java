@@ -0,0 +1,18 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VoteRecordDto {
+    private int id;
+    private int userId;
+    private int rsEventId;
+    private LocalDateTime localDateTime;
+    private int num;
+}
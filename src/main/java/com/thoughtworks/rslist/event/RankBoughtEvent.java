@@ -0,0 +1,13 @@
+package com.thoughtworks.rslist.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RankBoughtEvent {
+    private int rankPos;
+    private int price;
+    private int rsEventId;
+    private Integer replacedRsEventId;
+}
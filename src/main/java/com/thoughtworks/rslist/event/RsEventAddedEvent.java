@@ -0,0 +1,14 @@
+package com.thoughtworks.rslist.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RsEventAddedEvent {
+    private int rsEventId;
+    private String eventName;
+    private String keyword;
+    private int voteNum;
+    private int userId;
+}
@@ -0,0 +1,15 @@
+package com.thoughtworks.rslist.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class RsEventVotedEvent {
+    private int rsEventId;
+    private int userId;
+    private int voteNum;
+    private LocalDateTime time;
+}
@@ -0,0 +1,23 @@
+package com.thoughtworks.rslist.exception;
+
+public class VoteRejectedException extends RuntimeException {
+  public static final String INVALID_NUM = "invalid_num";
+  public static final String UNKNOWN_EVENT = "unknown_event";
+  public static final String UNKNOWN_USER = "unknown_user";
+  public static final String INSUFFICIENT_VOTES = "insufficient_votes";
+
+  private final String reason;
+
+  public VoteRejectedException(String reason) {
+    this.reason = reason;
+  }
+
+  public String getReason() {
+    return reason;
+  }
+
+  @Override
+  public String getMessage() {
+    return reason;
+  }
+}
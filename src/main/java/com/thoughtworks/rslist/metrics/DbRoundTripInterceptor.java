@@ -0,0 +1,57 @@
+package com.thoughtworks.rslist.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.Callable;
+
+/**
+ * Records how many SQL statements each request issued as the {@code rs.db.statements} summary,
+ * tagged with the matched URI pattern. Statements issued by a handler that ran asynchronously are
+ * counted on the async thread and added when the request completes.
+ */
+@Component
+public class DbRoundTripInterceptor implements HandlerInterceptor, CallableProcessingInterceptor {
+    private static final String ASYNC_STATEMENTS = DbRoundTripInterceptor.class.getName() + ".asyncStatements";
+
+    private final MeterRegistry meterRegistry;
+
+    public DbRoundTripInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StatementCounter.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Object asyncStatements = request.getAttribute(ASYNC_STATEMENTS);
+        DistributionSummary.builder("rs.db.statements")
+                .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                .register(meterRegistry)
+                .record(StatementCounter.current() + (asyncStatements == null ? 0 : (Integer) asyncStatements));
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        StatementCounter.reset();
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        request.setAttribute(ASYNC_STATEMENTS, StatementCounter.current(), RequestAttributes.SCOPE_REQUEST);
+    }
+}
@@ -0,0 +1,25 @@
+package com.thoughtworks.rslist.metrics;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+    private final DbRoundTripInterceptor dbRoundTripInterceptor;
+
+    public MetricsConfig(DbRoundTripInterceptor dbRoundTripInterceptor) {
+        this.dbRoundTripInterceptor = dbRoundTripInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(dbRoundTripInterceptor).excludePathPatterns("/actuator/**");
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(dbRoundTripInterceptor);
+    }
+}
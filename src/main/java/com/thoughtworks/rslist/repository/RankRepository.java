@@ -1,6 +1,8 @@
 package com.thoughtworks.rslist.repository;
 
 import com.thoughtworks.rslist.dto.RankDto;
+import com.thoughtworks.rslist.dto.RankedRsEventDto;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
@@ -16,4 +18,12 @@ public interface RankRepository extends CrudRepository<RankDto, Integer> {
 
     Optional<RankDto> findRankDtoByRankPos(int rankPos);
 
-}
\ No newline at end of file
+    @Query("select new com.thoughtworks.rslist.dto.RankedRsEventDto(r.rankPos, r.price, e.id, e.eventName, "
+            + "e.keyword, e.voteNum, e.user.id) from RankDto r, RsEventDto e where r.rsEventId = e.id "
+            + "order by r.rankPos")
+    List<RankedRsEventDto> findAllRankedRsEvents();
+
+    @Modifying
+    @Query("delete from RankDto r where r.rsEventId in (select e.id from RsEventDto e where e.user.id = :userId)")
+    int deleteAllOfUser(@Param("userId") int userId);
+}
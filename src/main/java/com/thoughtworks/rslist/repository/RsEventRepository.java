@@ -1,14 +1,58 @@
 package com.thoughtworks.rslist.repository;
 
 import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.RsEventSummaryDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface RsEventRepository extends CrudRepository<RsEventDto, Integer> {
+public interface RsEventRepository extends CrudRepository<RsEventDto, Integer>, RsEventRepositoryCustom {
   List<RsEventDto> findAll();
 
   @Transactional
   void deleteAllByUserId(int userId);
+
+  @Modifying
+  @Query("delete from RsEventDto e where e.user.id = :userId")
+  int deleteAllOfUser(@Param("userId") int userId);
+
+  @Query("select new com.thoughtworks.rslist.dto.RsEventSummaryDto(e.id, e.eventName, e.keyword, e.voteNum, e.user.id) "
+      + "from RsEventDto e")
+  List<RsEventSummaryDto> findAllSummaries();
+
+  @Query("select new com.thoughtworks.rslist.dto.RsEventSummaryDto(e.id, e.eventName, e.keyword, e.voteNum, e.user.id) "
+      + "from RsEventDto e where e.id > :id")
+  List<RsEventSummaryDto> findSummariesWithIdAbove(@Param("id") int id);
+
+  @Query("select new com.thoughtworks.rslist.dto.RsEventSummaryDto(e.id, e.eventName, e.keyword, e.voteNum, e.user.id) "
+      + "from RsEventDto e where e.id in :ids")
+  List<RsEventSummaryDto> findSummariesByIds(@Param("ids") Collection<Integer> ids);
+
+  @Query("select new com.thoughtworks.rslist.dto.RsEventSummaryDto(e.id, e.eventName, e.keyword, e.voteNum, e.user.id) "
+      + "from RsEventDto e where e.id not in (select r.rsEventId from RankDto r) "
+      + "order by e.voteNum desc, e.id asc")
+  List<RsEventSummaryDto> findUnpinnedOrderByVoteNum(Pageable pageable);
+
+  @Query("select new com.thoughtworks.rslist.dto.RsEventSummaryDto(e.id, e.eventName, e.keyword, e.voteNum, e.user.id) "
+      + "from RsEventDto e where e.id not in (select r.rsEventId from RankDto r) "
+      + "and e.voteNum <= :voteNum and (e.voteNum < :voteNum or e.id > :id) "
+      + "order by e.voteNum desc, e.id asc")
+  List<RsEventSummaryDto> findUnpinnedAfter(@Param("voteNum") int voteNum, @Param("id") int id, Pageable pageable);
+
+  @Query("select count(e) from RsEventDto e where e.id not in (select r.rsEventId from RankDto r)")
+  long countUnpinned();
+
+  @Query("select e.id from RsEventDto e where e.id in :ids")
+  List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+  @Modifying
+  @Transactional
+  @Query("update RsEventDto e set e.voteNum = e.voteNum + :num where e.id = :id")
+  int increaseVoteNum(@Param("id") int id, @Param("num") int num);
 }
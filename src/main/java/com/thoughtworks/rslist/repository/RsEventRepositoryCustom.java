@@ -0,0 +1,18 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.stream.Stream;
+
+public interface RsEventRepositoryCustom {
+  /**
+   * Credits each event by the given number of votes in one batch. Returns the ids of the events
+   * that no longer exist.
+   */
+  Set<Integer> increaseVoteNums(SortedMap<Integer, Integer> credits);
+
+  /** All events in id order, read as the stream is consumed. */
+  Stream<RsEvent> streamAll();
+}
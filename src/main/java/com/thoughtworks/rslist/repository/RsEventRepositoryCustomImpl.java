@@ -0,0 +1,41 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.stream.Stream;
+
+public class RsEventRepositoryCustomImpl implements RsEventRepositoryCustom {
+  @PersistenceContext
+  private EntityManager entityManager;
+  private final JdbcTemplate jdbcTemplate;
+  private final int fetchSize;
+
+  public RsEventRepositoryCustomImpl(JdbcTemplate jdbcTemplate,
+                                     @Value("${rs.streaming.fetch-size:500}") int fetchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.fetchSize = fetchSize;
+  }
+
+  @Override
+  public Set<Integer> increaseVoteNums(SortedMap<Integer, Integer> credits) {
+    return VoteNumBatchUpdates.notUpdated(jdbcTemplate,
+        "update rs_event set vote_num = vote_num + ? where id = ?", credits, false);
+  }
+
+  /** Uses {@code rs.streaming.fetch-size}, as {@link VoteRepositoryCustomImpl} does. */
+  @Override
+  public Stream<RsEvent> streamAll() {
+    return entityManager.createQuery(
+        "select new com.thoughtworks.rslist.domain.RsEvent(e.eventName, e.keyword, e.voteNum, e.user.id) "
+            + "from RsEventDto e order by e.id", RsEvent.class)
+        .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+        .getResultStream();
+  }
+}
@@ -1,10 +1,42 @@
 package com.thoughtworks.rslist.repository;
 
 import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.UserSummaryDto;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface UserRepository extends CrudRepository<UserDto, Integer> {
+public interface UserRepository extends CrudRepository<UserDto, Integer>, UserRepositoryCustom {
     List<UserDto> findAll();
+
+    @Query("select new com.thoughtworks.rslist.dto.UserSummaryDto(u.id, u.userName, u.voteNum) "
+            + "from UserDto u where u.id = :id")
+    Optional<UserSummaryDto> findSummaryById(@Param("id") int id);
+
+    @Query("select new com.thoughtworks.rslist.dto.UserSummaryDto(u.id, u.userName, u.voteNum) "
+            + "from UserDto u where u.id in :ids")
+    List<UserSummaryDto> findSummariesByIds(@Param("ids") Collection<Integer> ids);
+
+    @Query("select u.id from UserDto u where u.id in :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    @Modifying
+    @Query("delete from UserDto u where u.id = :id")
+    int deleteInBulkById(@Param("id") int id);
+
+    @Modifying
+    @Transactional
+    @Query("update UserDto u set u.voteNum = u.voteNum - :num where u.id = :id")
+    int decreaseVoteNum(@Param("id") int id, @Param("num") int num);
+
+    @Modifying
+    @Transactional
+    @Query("update UserDto u set u.voteNum = u.voteNum - :num where u.id = :id and u.voteNum >= :num")
+    int decreaseVoteNumIfEnough(@Param("id") int id, @Param("num") int num);
 }
@@ -0,0 +1,15 @@
+package com.thoughtworks.rslist.repository;
+
+import java.util.Set;
+import java.util.SortedMap;
+
+public interface UserRepositoryCustom {
+    /**
+     * Debits each user by the given number of votes if their balance covers it, in one batch.
+     * Returns the ids of the users that were not debited.
+     */
+    Set<Integer> decreaseVoteNumsIfEnough(SortedMap<Integer, Integer> debits);
+
+    /** Credits each user by the given number of votes in one batch. */
+    void increaseVoteNums(SortedMap<Integer, Integer> credits);
+}
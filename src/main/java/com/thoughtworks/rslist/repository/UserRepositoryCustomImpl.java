@@ -0,0 +1,26 @@
+package com.thoughtworks.rslist.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Set;
+import java.util.SortedMap;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Set<Integer> decreaseVoteNumsIfEnough(SortedMap<Integer, Integer> debits) {
+        return VoteNumBatchUpdates.notUpdated(jdbcTemplate,
+                "update user set vote_num = vote_num - ? where id = ? and vote_num >= ?", debits, true);
+    }
+
+    @Override
+    public void increaseVoteNums(SortedMap<Integer, Integer> credits) {
+        VoteNumBatchUpdates.notUpdated(jdbcTemplate,
+                "update user set vote_num = vote_num + ? where id = ?", credits, false);
+    }
+}
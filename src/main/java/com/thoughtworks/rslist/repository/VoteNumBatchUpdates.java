@@ -0,0 +1,47 @@
+package com.thoughtworks.rslist.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Sends one {@code vote_num} update per id as a single JDBC batch, in ascending id order so that
+ * concurrent batches lock rows in the same order, and reports the ids whose row was not updated.
+ * The statement takes the delta and the id, and the delta once more if it has a condition on it.
+ */
+final class VoteNumBatchUpdates {
+    private VoteNumBatchUpdates() {
+    }
+
+    static Set<Integer> notUpdated(JdbcTemplate jdbcTemplate, String sql, SortedMap<Integer, Integer> deltas,
+                                   boolean conditional) {
+        if (deltas.isEmpty()) {
+            return new HashSet<>();
+        }
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        List<Integer> ids = new ArrayList<>(deltas.size());
+        for (Map.Entry<Integer, Integer> entry : deltas.entrySet()) {
+            args.add(conditional
+                    ? new Object[]{entry.getValue(), entry.getKey(), entry.getValue()}
+                    : new Object[]{entry.getValue(), entry.getKey()});
+            ids.add(entry.getKey());
+        }
+        int[] counts = jdbcTemplate.batchUpdate(sql, args);
+        Set<Integer> notUpdated = new HashSet<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                throw new IllegalStateException("the driver did not report update counts for " + sql);
+            }
+            if (counts[i] == 0) {
+                notUpdated.add(ids.get(i));
+            }
+        }
+        return notUpdated;
+    }
+}
@@ -1,12 +1,65 @@
 package com.thoughtworks.rslist.repository;
 
+import com.thoughtworks.rslist.domain.Vote;
 import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.dto.VoteRecordDto;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface VoteRepository extends PagingAndSortingRepository<VoteDto, Integer> {
+public interface VoteRepository extends PagingAndSortingRepository<VoteDto, Integer>, VoteRepositoryCustom {
     List<VoteDto> findAll();
-    List<VoteDto> findAllByUserIdAndRsEventId(int userId, int rsEventId, Pageable pageable);
+    // spelled out because the derived query outer-joins user and rs_event and filters on the joined
+    // ids, which keeps the database from using idx_vote_user_event
+    @Query("select new com.thoughtworks.rslist.domain.Vote(v.user.id, v.rsEvent.id, v.localDateTime, v.num) "
+            + "from VoteDto v where v.user.id = :userId and v.rsEvent.id = :rsEventId order by v.id")
+    List<Vote> findAllByUserIdAndRsEventId(@Param("userId") int userId, @Param("rsEventId") int rsEventId,
+                                              Pageable pageable);
+
+    @Query("select new com.thoughtworks.rslist.dto.VoteRecordDto(v.id, v.user.id, v.rsEvent.id, v.localDateTime, v.num) "
+            + "from VoteDto v where (:userId is null or v.user.id = :userId) "
+            + "and (:rsEventId is null or v.rsEvent.id = :rsEventId) and v.id > :afterId order by v.id")
+    List<VoteRecordDto> findRecordsAfter(@Param("userId") Integer userId, @Param("rsEventId") Integer rsEventId,
+                                         @Param("afterId") int afterId, Pageable pageable);
+
+    @Query("select new com.thoughtworks.rslist.dto.VoteRecordDto(v.id, v.user.id, v.rsEvent.id, v.localDateTime, v.num) "
+            + "from VoteDto v where v.user.id = :userId and v.rsEvent.id = :rsEventId "
+            + "order by v.localDateTime, v.id")
+    List<VoteRecordDto> findRecordsByUserAndEvent(@Param("userId") int userId, @Param("rsEventId") int rsEventId,
+                                                  Pageable pageable);
+
+    @Query("select new com.thoughtworks.rslist.dto.VoteRecordDto(v.id, v.user.id, v.rsEvent.id, v.localDateTime, v.num) "
+            + "from VoteDto v where v.user.id = :userId and v.rsEvent.id = :rsEventId "
+            + "and v.localDateTime >= :time and (v.localDateTime > :time or v.id > :id) "
+            + "order by v.localDateTime, v.id")
+    List<VoteRecordDto> findRecordsByUserAndEventAfter(@Param("userId") int userId, @Param("rsEventId") int rsEventId,
+                                                       @Param("time") LocalDateTime time, @Param("id") int id,
+                                                       Pageable pageable);
+
+    @Query("select max(v.id) from VoteDto v")
+    Integer findMaxId();
+
+    @Query("select distinct v.rsEvent.id from VoteDto v where v.id > :id")
+    List<Integer> findVotedEventIdsAfter(@Param("id") int id);
+
+    @Query("select v.id from VoteDto v where v.user.id = :userId")
+    List<Integer> findIdsByVoter(@Param("userId") int userId, Pageable pageable);
+
+    @Query("select v.id from VoteDto v where v.rsEvent.id in (select e.id from RsEventDto e where e.user.id = :userId)")
+    List<Integer> findIdsOnEventsOf(@Param("userId") int userId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from VoteDto v where v.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Integer> ids);
+
+    @Modifying
+    @Query("delete from VoteDto v where v.user.id = :userId "
+            + "or v.rsEvent.id in (select e.id from RsEventDto e where e.user.id = :userId)")
+    int deleteAllOfUser(@Param("userId") int userId);
 }
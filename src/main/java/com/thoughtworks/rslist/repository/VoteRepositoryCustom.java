@@ -0,0 +1,14 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.domain.Vote;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+public interface VoteRepositoryCustom {
+    /** All votes, optionally of one user and one event, in id order, read as the stream is consumed. */
+    Stream<Vote> streamAll(Integer userId, Integer rsEventId);
+
+    /** The votes cast since {@code since}, read as the stream is consumed. */
+    Stream<Vote> streamSince(LocalDateTime since);
+}
@@ -0,0 +1,47 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.domain.Vote;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Streaming reads with the fetch size of {@code rs.streaming.fetch-size}. On MySQL only
+ * {@link Integer#MIN_VALUE} makes the driver stream a result set row by row instead of reading it
+ * into memory first, and it does so for these queries only.
+ */
+public class VoteRepositoryCustomImpl implements VoteRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+    private final int fetchSize;
+
+    public VoteRepositoryCustomImpl(@Value("${rs.streaming.fetch-size:500}") int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public Stream<Vote> streamAll(Integer userId, Integer rsEventId) {
+        return entityManager.createQuery(
+                "select new com.thoughtworks.rslist.domain.Vote(v.user.id, v.rsEvent.id, v.localDateTime, v.num) "
+                        + "from VoteDto v where (:userId is null or v.user.id = :userId) "
+                        + "and (:rsEventId is null or v.rsEvent.id = :rsEventId) order by v.id", Vote.class)
+                .setParameter("userId", userId)
+                .setParameter("rsEventId", rsEventId)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    @Override
+    public Stream<Vote> streamSince(LocalDateTime since) {
+        return entityManager.createQuery(
+                "select new com.thoughtworks.rslist.domain.Vote(v.user.id, v.rsEvent.id, v.localDateTime, v.num) "
+                        + "from VoteDto v where v.localDateTime >= :since", Vote.class)
+                .setParameter("since", since)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+}
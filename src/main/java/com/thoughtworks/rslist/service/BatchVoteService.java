@@ -0,0 +1,200 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.domain.VoteResult;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.event.RsEventVotedEvent;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.exception.VoteRejectedException;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Applies a batch of votes relayed by a gateway in a handful of statements instead of one round of
+ * reads and writes per vote.
+ *
+ * <p>Events and balances are read with one {@code in} query each, every vote is checked in request
+ * order against the running balance of its user, and then each user is debited once and each event
+ * credited once with conditional in-place updates, sent as one JDBC batch for the users and one for
+ * the events. Both go in ascending id order, so concurrent batches lock rows in the same order and
+ * cannot deadlock on each other. The vote records are inserted through
+ * {@link HistoryWriter#appendAll}, which lets Hibernate batch them. If a user's balance was drained
+ * by another request between the read and the debit, all of that user's votes in the batch are
+ * rejected rather than overdrawing. In write-behind mode the votes go through the buffer one by
+ * one, since it already applies them in memory and persists in batches.
+ */
+@Service
+public class BatchVoteService {
+    private final RsEventRepository rsEventRepository;
+    private final UserRepository userRepository;
+    private final HistoryWriter historyWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VoteWriteBehindBuffer voteWriteBehindBuffer;
+    private final MeterRegistry meterRegistry;
+    private final int maxSize;
+    private VoteMode voteMode = VoteMode.DIRECT;
+
+    public BatchVoteService(RsEventRepository rsEventRepository, UserRepository userRepository,
+                            HistoryWriter historyWriter, ApplicationEventPublisher eventPublisher,
+                            VoteWriteBehindBuffer voteWriteBehindBuffer, MeterRegistry meterRegistry,
+                            @Value("${rs.vote.batch.max-size:5000}") int maxSize) {
+        this.rsEventRepository = rsEventRepository;
+        this.userRepository = userRepository;
+        this.historyWriter = historyWriter;
+        this.eventPublisher = eventPublisher;
+        this.voteWriteBehindBuffer = voteWriteBehindBuffer;
+        this.meterRegistry = meterRegistry;
+        this.maxSize = maxSize;
+    }
+
+    @Value("${rs.vote.mode:direct}")
+    public void setVoteMode(String voteMode) {
+        this.voteMode = VoteMode.fromValue(voteMode);
+    }
+
+    @Transactional
+    public List<VoteResult> vote(List<Vote> votes) {
+        if (votes.size() > maxSize) {
+            throw new RequestNotValidException("too many votes");
+        }
+        String mode = voteMode.name().toLowerCase();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        VoteResult[] results = voteMode == VoteMode.WRITE_BEHIND ? voteOneByOne(votes) : voteInBatch(votes);
+        sample.stop(meterRegistry.timer("rs.vote.batch", "mode", mode));
+        meterRegistry.summary("rs.vote.batch.size").record(votes.size());
+        for (VoteResult result : results) {
+            if (!result.isAccepted()) {
+                meterRegistry.counter("rs.vote.rejected", "mode", mode, "reason", result.getReason()).increment();
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private VoteResult[] voteOneByOne(List<Vote> votes) {
+        VoteResult[] results = new VoteResult[votes.size()];
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < votes.size(); i++) {
+            Vote vote = votes.get(i);
+            try {
+                voteWriteBehindBuffer.vote(vote, vote.getRsEventId());
+            } catch (VoteRejectedException e) {
+                results[i] = VoteResult.rejected(i, e.getReason());
+                continue;
+            }
+            eventPublisher.publishEvent(new RsEventVotedEvent(vote.getRsEventId(), vote.getUserId(),
+                    vote.getVoteNum(), vote.getTime() == null ? now : vote.getTime()));
+            results[i] = VoteResult.accepted(i);
+        }
+        return results;
+    }
+
+    private VoteResult[] voteInBatch(List<Vote> votes) {
+        VoteResult[] results = new VoteResult[votes.size()];
+        Set<Integer> eventIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        for (Vote vote : votes) {
+            eventIds.add(vote.getRsEventId());
+            userIds.add(vote.getUserId());
+        }
+        Set<Integer> existingEvents = eventIds.isEmpty()
+                ? new HashSet<>() : new HashSet<>(rsEventRepository.findExistingIds(eventIds));
+        Map<Integer, Integer> balances = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            userRepository.findSummariesByIds(userIds).forEach(user -> balances.put(user.getId(), user.getVoteNum()));
+        }
+
+        SortedMap<Integer, Integer> debits = new TreeMap<>();
+        List<Integer> admitted = new ArrayList<>();
+        for (int i = 0; i < votes.size(); i++) {
+            Vote vote = votes.get(i);
+            String reason = check(vote, existingEvents, balances);
+            if (reason != null) {
+                results[i] = VoteResult.rejected(i, reason);
+                continue;
+            }
+            balances.merge(vote.getUserId(), -vote.getVoteNum(), Integer::sum);
+            debits.merge(vote.getUserId(), vote.getVoteNum(), Integer::sum);
+            admitted.add(i);
+        }
+
+        Set<Integer> overdrawn = userRepository.decreaseVoteNumsIfEnough(debits);
+
+        SortedMap<Integer, Integer> credits = new TreeMap<>();
+        for (int i : admitted) {
+            Vote vote = votes.get(i);
+            if (!overdrawn.contains(vote.getUserId())) {
+                credits.merge(vote.getRsEventId(), vote.getVoteNum(), Integer::sum);
+            }
+        }
+        // events can be deleted by an auction or a user deletion after they were looked up
+        Set<Integer> vanished = rsEventRepository.increaseVoteNums(credits);
+
+        LocalDateTime now = LocalDateTime.now();
+        SortedMap<Integer, Integer> refunds = new TreeMap<>();
+        List<VoteDto> voteDtos = new ArrayList<>(admitted.size());
+        List<RsEventVotedEvent> votedEvents = new ArrayList<>(admitted.size());
+        for (int i : admitted) {
+            Vote vote = votes.get(i);
+            if (overdrawn.contains(vote.getUserId())) {
+                results[i] = VoteResult.rejected(i, VoteRejectedException.INSUFFICIENT_VOTES);
+                continue;
+            }
+            if (vanished.contains(vote.getRsEventId())) {
+                refunds.merge(vote.getUserId(), vote.getVoteNum(), Integer::sum);
+                results[i] = VoteResult.rejected(i, VoteRejectedException.UNKNOWN_EVENT);
+                continue;
+            }
+            LocalDateTime time = vote.getTime() == null ? now : vote.getTime();
+            voteDtos.add(VoteDto.builder()
+                    .localDateTime(time)
+                    .num(vote.getVoteNum())
+                    .rsEvent(RsEventDto.builder().id(vote.getRsEventId()).build())
+                    .user(UserDto.builder().id(vote.getUserId()).build())
+                    .build());
+            votedEvents.add(new RsEventVotedEvent(vote.getRsEventId(), vote.getUserId(), vote.getVoteNum(), time));
+            results[i] = VoteResult.accepted(i);
+        }
+        if (!refunds.isEmpty()) {
+            userRepository.increaseVoteNums(refunds);
+        }
+        historyWriter.appendAll(voteDtos);
+        votedEvents.forEach(eventPublisher::publishEvent);
+        return results;
+    }
+
+    private static String check(Vote vote, Set<Integer> existingEvents, Map<Integer, Integer> balances) {
+        if (vote.getVoteNum() <= 0) {
+            return VoteRejectedException.INVALID_NUM;
+        }
+        if (!existingEvents.contains(vote.getRsEventId())) {
+            return VoteRejectedException.UNKNOWN_EVENT;
+        }
+        Integer balance = balances.get(vote.getUserId());
+        if (balance == null) {
+            return VoteRejectedException.UNKNOWN_USER;
+        }
+        if (vote.getVoteNum() > balance) {
+            return VoteRejectedException.INSUFFICIENT_VOTES;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.thoughtworks.rslist.service;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes whole tables as newline-delimited JSON straight from a forward-only result set, one row at
+ * a time, so memory use does not depend on the table size. The rows are read as projections, so
+ * nothing accumulates in the persistence context while the export runs.
+ */
+@Service
+public class ExportService {
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    final RsEventRepository rsEventRepository;
+    final VoteRepository voteRepository;
+    final TransactionTemplate transactionTemplate;
+    final ObjectWriter objectWriter;
+
+    public ExportService(RsEventRepository rsEventRepository, VoteRepository voteRepository,
+                         PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.rsEventRepository = rsEventRepository;
+        this.voteRepository = voteRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectWriter = objectMapper.writer();
+    }
+
+    public void writeRsEvents(OutputStream out) {
+        writeLines(rsEventRepository::streamAll, out);
+    }
+
+    public void writeVotes(Integer userId, Integer rsEventId, OutputStream out) {
+        writeLines(() -> voteRepository.streamAll(userId, rsEventId), out);
+    }
+
+    private <T> void writeLines(Supplier<Stream<T>> query, OutputStream out) {
+        transactionTemplate.execute(status -> {
+            try (Stream<T> rows = query.get()) {
+                BufferedOutputStream buffer = new BufferedOutputStream(out, BUFFER_SIZE);
+                Iterator<T> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    buffer.write(objectWriter.writeValueAsBytes(iterator.next()));
+                    buffer.write('\n');
+                }
+                buffer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,218 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.RankRecordDto;
+import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.repository.RankRecordRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only writer for the vote and rank record history.
+ *
+ * <p>With {@code rs.history.mode=sync} (the default) a record is saved in the caller's transaction.
+ * With {@code async} it is handed over once the caller's transaction has committed to a bounded
+ * queue, and a background thread saves it in JDBC batches of up to {@code batch-size} rows, waiting
+ * at most {@code flush-latency-ms} for a batch to fill. When the queue stays full for
+ * {@code offer-timeout-ms} the caller writes the record itself, which throttles producers to the
+ * database's pace instead of dropping history. Whatever is queued at shutdown is drained first.
+ */
+@Component
+public class HistoryWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HistoryWriter.class);
+
+    private final VoteRepository voteRepository;
+    private final RankRecordRepository rankRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean async;
+    private final int batchSize;
+    private final long flushLatencyMs;
+    private final long offerTimeoutMs;
+    private final BlockingQueue<Object> queue;
+    private volatile boolean running;
+    private Thread writer;
+
+    public HistoryWriter(VoteRepository voteRepository, RankRecordRepository rankRecordRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${rs.history.mode:sync}") String mode,
+                         @Value("${rs.history.capacity:8192}") int capacity,
+                         @Value("${rs.history.batch-size:100}") int batchSize,
+                         @Value("${rs.history.flush-latency-ms:50}") long flushLatencyMs,
+                         @Value("${rs.history.offer-timeout-ms:20}") long offerTimeoutMs) {
+        this.voteRepository = voteRepository;
+        this.rankRecordRepository = rankRecordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.async = "async".equalsIgnoreCase(mode);
+        this.batchSize = batchSize;
+        this.flushLatencyMs = flushLatencyMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!async) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::run, "history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!async) {
+            return;
+        }
+        running = false;
+        writer.join();
+        List<Object> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+    }
+
+    public void append(VoteDto voteDto) {
+        if (async) {
+            appendAfterCommit(voteDto);
+        } else {
+            voteRepository.save(voteDto);
+        }
+    }
+
+    public void appendAll(List<VoteDto> voteDtos) {
+        if (async) {
+            voteDtos.forEach(this::appendAfterCommit);
+        } else {
+            voteRepository.saveAll(voteDtos);
+        }
+    }
+
+    public void append(RankRecordDto rankRecordDto) {
+        if (async) {
+            appendAfterCommit(rankRecordDto);
+        } else {
+            rankRecordRepository.save(rankRecordDto);
+        }
+    }
+
+    int pending() {
+        return queue.size();
+    }
+
+    private void appendAfterCommit(Object record) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(record);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                enqueue(record);
+            }
+        });
+    }
+
+    private void enqueue(Object record) {
+        boolean accepted = false;
+        if (running) {
+            try {
+                accepted = queue.offer(record, offerTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!accepted) {
+            write(Collections.singletonList(record));
+        }
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Object first = queue.poll(flushLatencyMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushLatencyMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Object next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                queue.drainTo(batch);
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Object> records) {
+        try {
+            saveAll(records);
+        } catch (RuntimeException e) {
+            if (records.size() == 1) {
+                LOGGER.error("Dropped a {} history record", records.get(0).getClass().getSimpleName(), e);
+                return;
+            }
+            LOGGER.warn("History batch of {} failed, retrying one by one", records.size(), e);
+            for (Object record : records) {
+                write(Collections.singletonList(record));
+            }
+        }
+    }
+
+    private void saveAll(List<Object> records) {
+        List<VoteDto> votes = new ArrayList<>();
+        List<RankRecordDto> rankRecords = new ArrayList<>();
+        for (Object record : records) {
+            if (record instanceof VoteDto) {
+                votes.add((VoteDto) record);
+            } else {
+                rankRecords.add((RankRecordDto) record);
+            }
+        }
+        transactionTemplate.execute(status -> {
+            if (!votes.isEmpty()) {
+                voteRepository.saveAll(votes);
+            }
+            if (!rankRecords.isEmpty()) {
+                rankRecordRepository.saveAll(rankRecords);
+            }
+            return null;
+        });
+    }
+}
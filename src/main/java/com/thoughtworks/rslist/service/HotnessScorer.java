@@ -0,0 +1,105 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Scores events by their votes decayed exponentially with a half-life of
+ * {@code rs.list.hotness.half-life-hours}, so events stop collecting score once votes stop coming.
+ *
+ * <p>A vote at time {@code t} adds {@code num * e^(λ(t - t0))} for a fixed epoch {@code t0}. That is
+ * the decayed value at any later moment times a factor shared by all events, so scores are only
+ * ever added to and the order never has to be recomputed as time passes. When the exponent grows
+ * large the epoch moves forward and all scores are scaled down once by {@link #rescale}.
+ *
+ * <p>On load only votes of the last {@code rs.list.hotness.horizon-half-lives} half-lives are read;
+ * anything older would count for less than 2^-horizon of a fresh vote. Vote times come from the
+ * client, so times in the future are scored as now; otherwise one vote dated years ahead would move
+ * the epoch there and leave every real vote weighing nothing. Not thread-safe;
+ * {@link RsEventRanking} calls it under its own lock.
+ */
+@Component
+@ConditionalOnProperty(name = "rs.list.scoring", havingValue = "hotness")
+public class HotnessScorer implements RankingScorer {
+    private static final double MAX_EXPONENT = 300;
+
+    private final VoteRepository voteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final double lambda;
+    private final Duration horizon;
+    private Clock clock = Clock.systemDefaultZone();
+    private LocalDateTime epoch = LocalDateTime.now(clock);
+
+    public HotnessScorer(VoteRepository voteRepository, PlatformTransactionManager transactionManager,
+                         @Value("${rs.list.hotness.half-life-hours:24}") double halfLifeHours,
+                         @Value("${rs.list.hotness.horizon-half-lives:10}") int horizonHalfLives) {
+        this.voteRepository = voteRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.lambda = Math.log(2) / (halfLifeHours * 3600);
+        this.horizon = Duration.ofSeconds((long) (halfLifeHours * 3600 * horizonHalfLives));
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Map<Integer, Double> load() {
+        epoch = LocalDateTime.now(clock);
+        Map<Integer, Double> scores = new HashMap<>();
+        transactionTemplate.execute(status -> {
+            try (Stream<Vote> votes = voteRepository.streamSince(epoch.minus(horizon))) {
+                votes.forEach(vote -> scores.merge(vote.getRsEventId(), weight(vote.getTime()) * vote.getVoteNum(),
+                        Double::sum));
+            }
+            return null;
+        });
+        return scores;
+    }
+
+    @Override
+    public double initial(int voteNum) {
+        return 0;
+    }
+
+    @Override
+    public double add(double score, int voteNum, LocalDateTime time) {
+        return score + voteNum * weight(time);
+    }
+
+    @Override
+    public double rescale(LocalDateTime time) {
+        double exponent = exponent(time);
+        if (exponent < MAX_EXPONENT) {
+            return 1;
+        }
+        epoch = serverTime(time);
+        return Math.exp(-exponent);
+    }
+
+    private double weight(LocalDateTime time) {
+        return Math.exp(exponent(time));
+    }
+
+    private double exponent(LocalDateTime time) {
+        return lambda * Duration.between(epoch, serverTime(time)).toMillis() / 1000;
+    }
+
+    private LocalDateTime serverTime(LocalDateTime time) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        return time == null || time.isAfter(now) ? now : time;
+    }
+}
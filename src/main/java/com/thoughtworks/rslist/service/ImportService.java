@@ -0,0 +1,179 @@
+package com.thoughtworks.rslist.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.rslist.domain.ImportResult;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.User;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.event.RsEventAddedEvent;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of users and events from a JSON array in the request body.
+ *
+ * <p>The array is read element by element with a streaming parser and written in chunks of
+ * {@code rs.import.chunk-size}, each in its own transaction, after which the persistence context
+ * is cleared, so memory use is bounded by the chunk rather than the import. Each element is checked
+ * against the same constraints as the single-item endpoints; invalid ones are reported by their
+ * position in the array and skipped. Malformed JSON aborts the import, keeping the chunks already
+ * committed.
+ */
+@Service
+public class ImportService {
+    private final UserRepository userRepository;
+    private final RsEventRepository rsEventRepository;
+    private final UserCache userCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+
+    public ImportService(UserRepository userRepository, RsEventRepository rsEventRepository, UserCache userCache,
+                         ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                         EntityManager entityManager, ObjectMapper objectMapper, Validator validator,
+                         @Value("${rs.import.chunk-size:500}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.rsEventRepository = rsEventRepository;
+        this.userCache = userCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportResult importUsers(InputStream in) {
+        return importAll(in, User.class, this::saveUsers);
+    }
+
+    public ImportResult importRsEvents(InputStream in) {
+        return importAll(in, RsEvent.class, this::saveRsEvents);
+    }
+
+    private <T> ImportResult importAll(InputStream in, Class<T> type, ChunkWriter<T> writer) {
+        ImportResult result = new ImportResult();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        List<Integer> indexes = new ArrayList<>(chunkSize);
+        int index = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RequestNotValidException("expected a json array");
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                T item = objectMapper.readValue(parser, type);
+                String violations = violationsOf(item);
+                if (violations == null) {
+                    chunk.add(item);
+                    indexes.add(index);
+                } else {
+                    result.reject(index, violations);
+                }
+                index++;
+                if (chunk.size() == chunkSize) {
+                    write(chunk, indexes, writer, result);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new RequestNotValidException("invalid json at item " + index);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        write(chunk, indexes, writer, result);
+        return result;
+    }
+
+    private <T> void write(List<T> chunk, List<Integer> indexes, ChunkWriter<T> writer, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        transactionTemplate.execute(status -> {
+            writer.write(chunk, indexes, result);
+            entityManager.flush();
+            entityManager.clear();
+            return null;
+        });
+        chunk.clear();
+        indexes.clear();
+    }
+
+    private <T> String violationsOf(T item) {
+        Set<ConstraintViolation<T>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private void saveUsers(List<User> users, List<Integer> indexes, ImportResult result) {
+        List<UserDto> userDtos = new ArrayList<>(users.size());
+        for (User user : users) {
+            UserDto userDto = new UserDto();
+            userDto.setGender(user.getGender());
+            userDto.setPhone(user.getPhone());
+            userDto.setVoteNum(user.getVoteNum());
+            userDto.setAge(user.getAge());
+            userDto.setEmail(user.getEmail());
+            userDto.setUserName(user.getUserName());
+            userDtos.add(userDto);
+        }
+        userRepository.saveAll(userDtos).forEach(saved -> userCache.invalidate(saved.getId()));
+        result.imported(userDtos.size());
+    }
+
+    private void saveRsEvents(List<RsEvent> rsEvents, List<Integer> indexes, ImportResult result) {
+        Set<Integer> userIds = rsEvents.stream().map(RsEvent::getUserId).collect(Collectors.toSet());
+        Set<Integer> knownUsers = new HashSet<>(userRepository.findExistingIds(userIds));
+        List<RsEventDto> rsEventDtos = new ArrayList<>(rsEvents.size());
+        for (int i = 0; i < rsEvents.size(); i++) {
+            RsEvent rsEvent = rsEvents.get(i);
+            if (!knownUsers.contains(rsEvent.getUserId())) {
+                result.reject(indexes.get(i), "userId unknown user");
+                continue;
+            }
+            rsEventDtos.add(RsEventDto.builder()
+                    .keyword(rsEvent.getKeyword())
+                    .eventName(rsEvent.getEventName())
+                    .voteNum(0)
+                    .user(UserDto.builder().id(rsEvent.getUserId()).build())
+                    .build());
+        }
+        for (RsEventDto saved : rsEventRepository.saveAll(rsEventDtos)) {
+            eventPublisher.publishEvent(new RsEventAddedEvent(saved.getId(), saved.getEventName(),
+                    saved.getKeyword(), saved.getVoteNum(), saved.getUser().getId()));
+        }
+        result.imported(rsEventDtos.size());
+    }
+
+    private interface ChunkWriter<T> {
+        void write(List<T> chunk, List<Integer> indexes, ImportResult result);
+    }
+}
@@ -0,0 +1,157 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.dto.RankDto;
+import com.thoughtworks.rslist.dto.RankRecordDto;
+import com.thoughtworks.rslist.event.RankBoughtEvent;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.RankRepository;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resolves bids for bought ranks.
+ *
+ * <p>Bids for the same rank position are serialized on a striped lock that is held until the
+ * bid's transaction has committed, while bids for other positions proceed in parallel. Across
+ * nodes the {@code @Version} on {@link RankDto} and the unique {@code rank_pos} reject the losing
+ * write of a race, and the bid is re-evaluated against the fresh rank. Other integrity violations,
+ * such as deleting a replaced event that is still referenced, are not races and fail the bid at once.
+ */
+@Component
+public class RankAuction {
+    static final int MAX_ATTEMPTS = 3;
+    private static final int STRIPES = 64;
+    private static final String RANK_POS_CONSTRAINT = "uk_rank_rank_pos";
+
+    final RsEventRepository rsEventRepository;
+    final RankRepository rankRepository;
+    final HistoryWriter historyWriter;
+    final ApplicationEventPublisher eventPublisher;
+    final TransactionTemplate transactionTemplate;
+    final MeterRegistry meterRegistry;
+    private final Timer lockWait;
+    private final Counter conflicts;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public RankAuction(RsEventRepository rsEventRepository, RankRepository rankRepository,
+                       HistoryWriter historyWriter, ApplicationEventPublisher eventPublisher,
+                       PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.rsEventRepository = rsEventRepository;
+        this.rankRepository = rankRepository;
+        this.historyWriter = historyWriter;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.lockWait = meterRegistry.timer("rs.bid.lock.wait");
+        this.conflicts = meterRegistry.counter("rs.bid.conflicts");
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public void bid(Trade trade, int eventId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            doBid(trade, eventId);
+            outcome = "won";
+        } catch (RequestNotValidException e) {
+            outcome = trade.getRank() < 1 ? "invalid" : "lost";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("rs.bid", "outcome", outcome));
+        }
+    }
+
+    private void doBid(Trade trade, int eventId) {
+        if (trade.getRank() < 1) {
+            throw new RequestNotValidException("invalid rank");
+        }
+        ReentrantLock lock = locks[Math.floorMod(trade.getRank(), STRIPES)];
+        long waitStart = System.nanoTime();
+        lock.lock();
+        lockWait.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    transactionTemplate.execute(status -> {
+                        resolve(trade, eventId);
+                        return null;
+                    });
+                    return;
+                } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+                    if (e instanceof DataIntegrityViolationException && !isRankPosConflict(e)) {
+                        throw e;
+                    }
+                    conflicts.increment();
+                    if (attempt >= MAX_ATTEMPTS) {
+                        throw new RequestNotValidException("buy rank failed");
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void resolve(Trade trade, int eventId) {
+        int rank = trade.getRank();
+        Optional<RankDto> optionalRankDto = rankRepository.findRankDtoByRankPos(rank);
+        if (!optionalRankDto.isPresent()) {
+            RankDto rankDto = RankDto.builder().rankPos(rank).price(trade.getAmount()).rsEventId(eventId).build();
+            rankRepository.save(rankDto);
+            historyWriter.append(rankDtoConvertRankRecordDto(rankDto));
+            eventPublisher.publishEvent(new RankBoughtEvent(rank, trade.getAmount(), eventId, null));
+            return;
+        }
+        RankDto rankDto = optionalRankDto.get();
+        if (trade.getAmount() <= rankDto.getPrice()) {
+            throw new RequestNotValidException("buy rank failed");
+        }
+        int replacedRsEventId = rankDto.getRsEventId();
+        rsEventRepository.deleteById(replacedRsEventId);
+        rankDto.setRsEventId(eventId);
+        rankDto.setPrice(trade.getAmount());
+        rankRepository.save(rankDto);
+        historyWriter.append(rankDtoConvertRankRecordDto(rankDto));
+        eventPublisher.publishEvent(new RankBoughtEvent(rank, trade.getAmount(), eventId, replacedRsEventId));
+    }
+
+    /**
+     * Whether the violation is another node inserting the same rank position first. The constraint
+     * name is not extracted by every dialect, so the driver's message is checked too.
+     */
+    private static boolean isRankPosConflict(Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String constraintName = cause instanceof ConstraintViolationException
+                    ? ((ConstraintViolationException) cause).getConstraintName() : null;
+            if (mentionsRankPos(constraintName) || mentionsRankPos(cause.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean mentionsRankPos(String text) {
+        return text != null && text.toLowerCase().contains(RANK_POS_CONSTRAINT);
+    }
+
+    public RankRecordDto rankDtoConvertRankRecordDto(RankDto rankDto) {
+        return RankRecordDto.builder().price(rankDto.getPrice()).rankPos(rankDto.getRankPos())
+                .rsEventId(rankDto.getRsEventId()).build();
+    }
+}
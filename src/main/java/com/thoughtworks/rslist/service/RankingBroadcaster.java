@@ -0,0 +1,277 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RankingChange;
+import com.thoughtworks.rslist.event.RankBoughtEvent;
+import com.thoughtworks.rslist.util.IntIntMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes changes of the ranked list to {@code /rs/list/subscribe} clients as server-sent events.
+ *
+ * <p>A subscriber first gets a {@code snapshot} event with the whole list, then a {@code changes}
+ * event whenever the list differs from the last one sent. Writes to the ranking only bump its
+ * version; every {@code rs.list.subscribe.interval-ms} a changed list is compared once against the
+ * previous state and the same diff goes to every subscriber, so a burst of votes and buys costs one
+ * message per interval regardless of its size.
+ *
+ * <p>Messages are queued per subscriber and written by a pool of {@code rs.list.subscribe.sender-threads},
+ * so a slow client only holds up its own stream and at most one sender thread. A subscriber with
+ * more than {@code rs.list.subscribe.max-pending} messages waiting, whether its client is slow or
+ * no sender thread is free for it, is dropped and has to subscribe again. Dropping only marks it
+ * closed; the emitter is completed from the sender side, since completing it waits for a write in
+ * progress. The snapshot is queued before the subscriber can
+ * receive diffs, and it shows the state the next diff starts from.
+ */
+@Component
+public class RankingBroadcaster {
+    private static final int NOT_LISTED = 0;
+
+    private final RsEventRanking rsEventRanking;
+    private final long intervalMs;
+    private final int maxPending;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService sender;
+    private final List<RankingChange> bought = new ArrayList<>();
+    private final Counter messages;
+    private RsEventRanking.RankedList sent;
+    private IntIntMap positions;
+    private int[] ids;
+    private int[] voteNums;
+    private long version;
+    private ScheduledExecutorService scheduler;
+
+    public RankingBroadcaster(RsEventRanking rsEventRanking,
+                              @Value("${rs.list.subscribe.interval-ms:1000}") long intervalMs,
+                              @Value("${rs.list.subscribe.max-pending:16}") int maxPending,
+                              @Value("${rs.list.subscribe.sender-threads:8}") int senderThreads,
+                              MeterRegistry meterRegistry) {
+        this.rsEventRanking = rsEventRanking;
+        this.intervalMs = intervalMs;
+        this.maxPending = maxPending;
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ranking-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.messages = meterRegistry.counter("rs.list.subscribe.messages");
+        meterRegistry.gaugeCollectionSize("rs.list.subscribers", Tags.empty(), subscribers);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ranking-broadcaster");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::publish, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        sender.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter());
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        synchronized (this) {
+            if (positions == null) {
+                remember(rsEventRanking.rankedList());
+            }
+            List<RankingChange> snapshot = new ArrayList<>(sent.size());
+            for (int position = 1; position <= sent.size(); position++) {
+                snapshot.add(RankingChange.added(sent.getId(position), position, sent.get(position)));
+            }
+            subscriber.offer(SseEmitter.event().name("snapshot").data(snapshot, MediaType.APPLICATION_JSON));
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRankBought(RankBoughtEvent event) {
+        if (positions != null) {
+            bought.add(RankingChange.bought(event.getRsEventId(), event.getRankPos(), event.getReplacedRsEventId()));
+        }
+    }
+
+    /**
+     * Queues the changes for every subscriber. Done under the same lock as {@link #subscribe}, so a
+     * subscriber gets either the diff or a snapshot that already contains it, never both.
+     */
+    public synchronized void publish() {
+        List<RankingChange> diff = changes();
+        if (diff.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.offer(SseEmitter.event().name("changes").data(diff, MediaType.APPLICATION_JSON))) {
+                subscribers.remove(subscriber);
+                subscriber.close();
+            }
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * The changes since the previous call, or since the first subscriber joined, in list order:
+     * bought ranks first, then removed events, then added, moved and voted ones. Nothing is
+     * tracked while there are no subscribers.
+     */
+    synchronized List<RankingChange> changes() {
+        if (subscribers.isEmpty()) {
+            sent = null;
+            positions = null;
+            voteNums = null;
+            bought.clear();
+            return new ArrayList<>();
+        }
+        if (positions == null || rsEventRanking.version() == version) {
+            return new ArrayList<>();
+        }
+        RsEventRanking.RankedList rankedList = rsEventRanking.rankedList();
+        List<RankingChange> diff = new ArrayList<>(bought);
+        bought.clear();
+        IntIntMap previousPositions = positions;
+        int[] previousIds = ids;
+        int[] previousVoteNums = voteNums;
+        remember(rankedList);
+        for (int i = 0; i < previousIds.length; i++) {
+            if (!positions.containsKey(previousIds[i])) {
+                diff.add(RankingChange.removed(previousIds[i], i + 1));
+            }
+        }
+        for (int position = 1; position <= rankedList.size(); position++) {
+            int id = rankedList.getId(position);
+            int voteNum = rankedList.get(position).getVoteNum();
+            int from = previousPositions.get(id);
+            if (from == NOT_LISTED) {
+                diff.add(RankingChange.added(id, position, rankedList.get(position)));
+            } else if (from != position) {
+                boolean voted = previousVoteNums[from - 1] != voteNum;
+                diff.add(RankingChange.moved(id, from, position, voted ? voteNum : null));
+            } else if (previousVoteNums[from - 1] != voteNum) {
+                diff.add(RankingChange.voted(id, position, voteNum));
+            }
+        }
+        return diff;
+    }
+
+    private void remember(RsEventRanking.RankedList rankedList) {
+        sent = rankedList;
+        version = rankedList.getVersion();
+        positions = new IntIntMap(rankedList.size(), NOT_LISTED);
+        ids = new int[rankedList.size()];
+        voteNums = new int[rankedList.size()];
+        for (int position = 1; position <= rankedList.size(); position++) {
+            positions.put(rankedList.getId(position), position);
+            ids[position - 1] = rankedList.getId(position);
+            voteNums[position - 1] = rankedList.get(position).getVoteNum();
+        }
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /** Queues the message, or returns {@code false} if too many are already waiting. */
+        boolean offer(SseEmitter.SseEventBuilder event) {
+            if (pendingCount.incrementAndGet() > maxPending) {
+                return false;
+            }
+            pending.add(event);
+            schedule();
+            return true;
+        }
+
+        /**
+         * Stops sending and has the emitter completed by a sender thread: by the drain in progress
+         * once its write returns, or by a new one.
+         */
+        void close() {
+            closed = true;
+            pending.clear();
+            schedule();
+        }
+
+        private void schedule() {
+            if (!completed.get() && draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            Throwable failure = null;
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = pending.poll()) != null) {
+                    emitter.send(event);
+                    pendingCount.decrementAndGet();
+                    messages.increment();
+                }
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(this);
+                closed = true;
+                pending.clear();
+                failure = e;
+            } finally {
+                draining.set(false);
+            }
+            if (closed) {
+                if (completed.compareAndSet(false, true)) {
+                    if (failure == null) {
+                        emitter.complete();
+                    } else {
+                        emitter.completeWithError(failure);
+                    }
+                }
+                return;
+            }
+            // a message queued after the last poll but before the flag was cleared
+            if (!pending.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.thoughtworks.rslist.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * How {@link RsEventRanking} orders unpinned events: by a score kept per event and updated from
+ * each vote, highest first, with ties broken by vote count and then by id.
+ */
+public interface RankingScorer {
+    /**
+     * Scores of the events when the ranking is loaded, keyed by event id. Events that are missing
+     * get {@link #initial(int)}.
+     */
+    Map<Integer, Double> load();
+
+    /** The score of an event with the given vote count and no vote history to go on. */
+    double initial(int voteNum);
+
+    /** The score of an event after a vote of {@code voteNum} at {@code time}. */
+    double add(double score, int voteNum, LocalDateTime time);
+
+    /**
+     * Called before a vote at {@code time} is scored. Returns the factor every current score has to
+     * be multiplied by, or 1 if they stay as they are.
+     */
+    double rescale(LocalDateTime time);
+}
@@ -0,0 +1,176 @@
+package com.thoughtworks.rslist.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * The state of {@link RsEventRanking} at one moment, in list order, and its file format.
+ *
+ * <p>The file has a fixed layout, all numbers big-endian:
+ * <pre>
+ *   0  int   magic "RSNP"
+ *   4  int   format version
+ *   8  long  time written, epoch millis
+ *  16  int   vote watermark: highest vote id before the state was taken
+ *  20  int   number of events n
+ *  24  int   length s of the string heap
+ *  28  int   CRC32 of everything from offset 32 on
+ *  32  n records of 32 bytes: id, userId, voteNum, pinned rank or 0, then offset and length of
+ *      eventName and keyword in the string heap (length -1 for null)
+ *  32 + 32n  s bytes of UTF-8 string heap
+ * </pre>
+ * Unpinned events come first in ranking order, then pinned ones by position. Files are written
+ * through a memory mapping to a temporary file that is then moved over the old one, and read
+ * through a read-only mapping.
+ */
+public class RankingSnapshot {
+    static final int MAGIC = 0x52534E50;
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 32;
+
+    final long writtenAt;
+    final int voteWatermark;
+    final int[] ids;
+    final int[] userIds;
+    final int[] voteNums;
+    final int[] pinnedRanks;
+    final String[] eventNames;
+    final String[] keywords;
+
+    RankingSnapshot(long writtenAt, int voteWatermark, int size) {
+        this.writtenAt = writtenAt;
+        this.voteWatermark = voteWatermark;
+        this.ids = new int[size];
+        this.userIds = new int[size];
+        this.voteNums = new int[size];
+        this.pinnedRanks = new int[size];
+        this.eventNames = new String[size];
+        this.keywords = new String[size];
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    int maxEventId() {
+        int max = 0;
+        for (int id : ids) {
+            max = Math.max(max, id);
+        }
+        return max;
+    }
+
+    void write(Path path) throws IOException {
+        int size = size();
+        byte[][] names = new byte[size][];
+        byte[][] words = new byte[size][];
+        int heapSize = 0;
+        for (int i = 0; i < size; i++) {
+            names[i] = eventNames[i] == null ? null : eventNames[i].getBytes(StandardCharsets.UTF_8);
+            words[i] = keywords[i] == null ? null : keywords[i].getBytes(StandardCharsets.UTF_8);
+            heapSize += (names[i] == null ? 0 : names[i].length) + (words[i] == null ? 0 : words[i].length);
+        }
+        long fileSize = HEADER_SIZE + (long) RECORD_SIZE * size + heapSize;
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(writtenAt)
+                    .putInt(voteWatermark).putInt(size).putInt(heapSize).putInt(0);
+            int heapOffset = 0;
+            for (int i = 0; i < size; i++) {
+                buffer.putInt(ids[i]).putInt(userIds[i]).putInt(voteNums[i]).putInt(pinnedRanks[i]);
+                heapOffset = putString(buffer, names[i], heapOffset);
+                heapOffset = putString(buffer, words[i], heapOffset);
+            }
+            for (int i = 0; i < size; i++) {
+                if (names[i] != null) {
+                    buffer.put(names[i]);
+                }
+                if (words[i] != null) {
+                    buffer.put(words[i]);
+                }
+            }
+            buffer.putInt(28, checksum(buffer));
+            buffer.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the snapshot at {@code path}, or returns {@code null} if there is none.
+     *
+     * @throws IOException if the file cannot be read or is not a complete snapshot of this format
+     */
+    static RankingSnapshot read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("truncated ranking snapshot " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("not a ranking snapshot of version " + VERSION + ": " + path);
+            }
+            int size = buffer.getInt(20);
+            int heapSize = buffer.getInt(24);
+            if (size < 0 || heapSize < 0 || fileSize != HEADER_SIZE + (long) RECORD_SIZE * size + heapSize
+                    || buffer.getInt(28) != checksum(buffer)) {
+                throw new IOException("corrupt ranking snapshot " + path);
+            }
+            RankingSnapshot snapshot = new RankingSnapshot(buffer.getLong(8), buffer.getInt(16), size);
+            int heapStart = HEADER_SIZE + RECORD_SIZE * size;
+            for (int i = 0; i < size; i++) {
+                int record = HEADER_SIZE + RECORD_SIZE * i;
+                snapshot.ids[i] = buffer.getInt(record);
+                snapshot.userIds[i] = buffer.getInt(record + 4);
+                snapshot.voteNums[i] = buffer.getInt(record + 8);
+                snapshot.pinnedRanks[i] = buffer.getInt(record + 12);
+                snapshot.eventNames[i] = getString(buffer, heapStart, buffer.getInt(record + 16),
+                        buffer.getInt(record + 20));
+                snapshot.keywords[i] = getString(buffer, heapStart, buffer.getInt(record + 24),
+                        buffer.getInt(record + 28));
+            }
+            return snapshot;
+        }
+    }
+
+    private static int putString(ByteBuffer buffer, byte[] bytes, int heapOffset) {
+        buffer.putInt(heapOffset).putInt(bytes == null ? -1 : bytes.length);
+        return bytes == null ? heapOffset : heapOffset + bytes.length;
+    }
+
+    private static String getString(ByteBuffer buffer, int heapStart, int offset, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(heapStart + offset);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int checksum(ByteBuffer buffer) {
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_SIZE);
+        body.limit(body.capacity());
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+}
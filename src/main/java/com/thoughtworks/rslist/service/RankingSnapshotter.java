@@ -0,0 +1,113 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves {@link RsEventRanking} to {@code rs.list.snapshot.path} every
+ * {@code rs.list.snapshot.interval-ms} and on shutdown, so a restarted node can load the ranking
+ * from the file instead of reading every event from the database.
+ *
+ * <p>Each snapshot records the highest vote id before it was taken. On restore, the events voted
+ * on since are read again from {@code rs_event}, whose {@code vote_num} is authoritative, so
+ * re-reading one twice does no harm. The watermark is moved back by {@code rs.list.snapshot.rewind-ids}
+ * because vote ids come in pooled blocks per node and the async history writer inserts votes after
+ * their commit, so a vote below the watermark can still show up after the snapshot was taken.
+ */
+@Component
+public class RankingSnapshotter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RankingSnapshotter.class);
+
+    private final RsEventRanking rsEventRanking;
+    private final VoteRepository voteRepository;
+    private final boolean enabled;
+    private final Path path;
+    private final long intervalMs;
+    private final int rewindIds;
+    private ScheduledExecutorService scheduler;
+
+    public RankingSnapshotter(RsEventRanking rsEventRanking, VoteRepository voteRepository,
+                              @Value("${rs.list.snapshot.enabled:false}") boolean enabled,
+                              @Value("${rs.list.snapshot.path:data/ranking.snapshot}") String path,
+                              @Value("${rs.list.snapshot.interval-ms:60000}") long intervalMs,
+                              @Value("${rs.list.snapshot.rewind-ids:10000}") int rewindIds) {
+        this.rsEventRanking = rsEventRanking;
+        this.voteRepository = voteRepository;
+        this.enabled = enabled;
+        this.path = Paths.get(path);
+        this.intervalMs = intervalMs;
+        this.rewindIds = rewindIds;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        rsEventRanking.setSnapshotter(this);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ranking-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::save, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (enabled) {
+            scheduler.shutdownNow();
+            save();
+        }
+    }
+
+    /** Writes the current ranking, unless it has not been loaded yet. */
+    public void save() {
+        try {
+            Integer maxVoteId = voteRepository.findMaxId();
+            RankingSnapshot snapshot = rsEventRanking.capture(maxVoteId == null ? 0 : maxVoteId);
+            if (snapshot != null) {
+                snapshot.write(path);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("saving the ranking snapshot to {} failed", path, e);
+        }
+    }
+
+    /** The last snapshot written, or {@code null} if there is none or it cannot be read. */
+    RankingSnapshot read() {
+        try {
+            return RankingSnapshot.read(path);
+        } catch (IOException e) {
+            LOGGER.warn("ignoring the ranking snapshot at {}", path, e);
+            return null;
+        }
+    }
+
+    /** Ids of the events that may have been voted on since {@code snapshot} was taken. */
+    Set<Integer> votedSince(RankingSnapshot snapshot) {
+        return new HashSet<>(voteRepository.findVotedEventIdsAfter(Math.max(0, snapshot.voteWatermark - rewindIds)));
+    }
+
+    int rewindIds() {
+        return rewindIds;
+    }
+}
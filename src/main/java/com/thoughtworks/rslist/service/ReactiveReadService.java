@@ -0,0 +1,73 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.VoteRecordDto;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Publisher-based reads for the {@code /reactive} endpoints.
+ *
+ * <p>The list and single positions come straight from {@link RsEventRanking}, which never blocks
+ * once loaded. Vote history is read in keyset pages of {@code rs.reactive.page-size} rows, each
+ * fetched on the bounded elastic scheduler only when the subscriber has asked for more, so a slow
+ * reader holds neither a thread nor a database connection between pages.
+ */
+@Service
+public class ReactiveReadService {
+    private final RsEventRanking rsEventRanking;
+    private final VoteRepository voteRepository;
+    private final int pageSize;
+
+    public ReactiveReadService(RsEventRanking rsEventRanking, VoteRepository voteRepository,
+                               @Value("${rs.reactive.page-size:500}") int pageSize) {
+        this.rsEventRanking = rsEventRanking;
+        this.voteRepository = voteRepository;
+        this.pageSize = pageSize;
+    }
+
+    public Flux<RsEvent> list(Integer start, Integer end) {
+        return Flux.defer(() -> {
+            if (start == null || end == null) {
+                return Flux.fromIterable(rsEventRanking.list());
+            }
+            if (start < 1 || start > end) {
+                return Flux.error(new RequestNotValidException("invalid index"));
+            }
+            List<RsEvent> top = rsEventRanking.top(end);
+            if (end > top.size()) {
+                return Flux.error(new RequestNotValidException("invalid index"));
+            }
+            return Flux.fromIterable(top.subList(start - 1, end));
+        });
+    }
+
+    public Mono<RsEvent> get(int index) {
+        return Mono.fromSupplier(() -> rsEventRanking.get(index))
+                .switchIfEmpty(Mono.error(() -> new RequestNotValidException("invalid index")));
+    }
+
+    public Flux<Vote> votes(Integer userId, Integer rsEventId) {
+        return page(userId, rsEventId, 0)
+                .expand(page -> page.size() < pageSize
+                        ? Mono.empty() : page(userId, rsEventId, page.get(page.size() - 1).getId()))
+                .flatMapIterable(page -> page)
+                .map(record -> new Vote(record.getUserId(), record.getRsEventId(), record.getLocalDateTime(),
+                        record.getNum()));
+    }
+
+    private Mono<List<VoteRecordDto>> page(Integer userId, Integer rsEventId, int afterId) {
+        return Mono.fromCallable(() -> voteRepository.findRecordsAfter(userId, rsEventId, afterId,
+                PageRequest.of(0, pageSize)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
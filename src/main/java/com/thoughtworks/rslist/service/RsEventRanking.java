@@ -0,0 +1,597 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.dto.RankDto;
+import com.thoughtworks.rslist.dto.RsEventSummaryDto;
+import com.thoughtworks.rslist.event.RankBoughtEvent;
+import com.thoughtworks.rslist.event.RsEventAddedEvent;
+import com.thoughtworks.rslist.event.RsEventVotedEvent;
+import com.thoughtworks.rslist.event.UserDeletedEvent;
+import com.thoughtworks.rslist.repository.RankRepository;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.util.IntIntMap;
+import com.thoughtworks.rslist.util.IntObjectMap;
+import com.thoughtworks.rslist.util.OrderStatisticTree;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory ranked view of the hot-search list served by {@code /rs/list}.
+ *
+ * <p>The state is loaded from the database on first use and then kept up to date from the vote,
+ * buy, add and user deletion events, so reads never touch the database. Writers rebuild nothing
+ * eagerly: they only move the changed event inside the sorted set and drop the materialized list,
+ * which is rebuilt once by the next reader and then shared by every read until the next write.
+ *
+ * <p>Unpinned events and bought rank positions are kept in order-statistic trees, so the event at a
+ * given position of the merged list can be found in O(log n) without materializing the list.
+ *
+ * <p>Unpinned events are ordered by the score of a {@link RankingScorer}, which is the vote count
+ * unless {@code rs.list.scoring} selects the time-decayed {@link HotnessScorer}.
+ *
+ * <p>With {@code rs.list.snapshot.enabled} the state is loaded from the file that
+ * {@link RankingSnapshotter} writes and reconciled with the database, instead of read in full.
+ *
+ * <p>Since clients mostly read the first page, the first {@code rs.list.top-k} positions are also
+ * materialized on their own. That window is only dropped by writes that can reach into it, which
+ * the tree tells in O(log n) from the event's rank before and after the change, so votes further
+ * down the list leave it in place and top reads cost O(K) rather than a rebuild of the whole list.
+ */
+@Component
+public class RsEventRanking {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RsEventRanking.class);
+    private static final Comparator<RankedEvent> BY_SCORE =
+            Comparator.comparingDouble(RankedEvent::getScore).reversed()
+                    .thenComparing(Comparator.comparingInt(RankedEvent::getVoteNum).reversed())
+                    .thenComparingInt(RankedEvent::getId);
+
+    private final RsEventRepository rsEventRepository;
+    private final RankRepository rankRepository;
+
+    private static final int NONE = -1;
+    private static final int RESTORE_CHUNK = 1000;
+
+    private final IntObjectMap<RankedEvent> events = new IntObjectMap<>();
+    private final OrderStatisticTree<RankedEvent> unpinned = new OrderStatisticTree<>(BY_SCORE);
+    private final OrderStatisticTree<Integer> pinPositions = new OrderStatisticTree<>(Comparator.naturalOrder());
+    private final IntIntMap pins = new IntIntMap(NONE);
+    private final IntIntMap pinOf = new IntIntMap(NONE);
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Timer buildTime;
+    private final DistributionSummary scanned;
+    private boolean loaded;
+    private volatile List<RsEvent> snapshot;
+    private volatile List<RsEvent> head;
+    private int topK = 50;
+    private RankingScorer scorer = new VoteCountScorer();
+    private RankingSnapshotter snapshotter;
+    private int[] snapshotIds;
+    private volatile long version;
+
+    public RsEventRanking(RsEventRepository rsEventRepository, RankRepository rankRepository,
+                          MeterRegistry meterRegistry) {
+        this.rsEventRepository = rsEventRepository;
+        this.rankRepository = rankRepository;
+        this.cacheHits = meterRegistry.counter("rs.list.requests", "cache", "hit");
+        this.cacheMisses = meterRegistry.counter("rs.list.requests", "cache", "miss");
+        this.buildTime = meterRegistry.timer("rs.list.build");
+        this.scanned = meterRegistry.summary("rs.list.scanned");
+    }
+
+    public List<RsEvent> list() {
+        List<RsEvent> current = snapshot;
+        if (current != null) {
+            cacheHits.increment();
+            return current;
+        }
+        cacheMisses.increment();
+        return rebuild();
+    }
+
+    @Value("${rs.list.top-k:50}")
+    public void setTopK(int topK) {
+        this.topK = topK;
+    }
+
+    @Autowired
+    public void setScorer(RankingScorer scorer) {
+        this.scorer = scorer;
+    }
+
+    /**
+     * Returns the first {@code n} events of {@link #list()}, or all of them if there are fewer.
+     * Up to {@code rs.list.top-k} they come from the top window without building the whole list.
+     */
+    public List<RsEvent> top(int n) {
+        List<RsEvent> current = snapshot;
+        if (current == null && n <= topK) {
+            current = head;
+            if (current == null) {
+                cacheMisses.increment();
+                current = rebuildHead();
+            } else {
+                cacheHits.increment();
+            }
+        } else {
+            current = list();
+        }
+        return n < current.size() ? current.subList(0, n) : current;
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return events.size();
+    }
+
+    /**
+     * Returns the event at the given one-based position of {@link #list()}, or {@code null} if
+     * there is none.
+     */
+    public RsEvent get(int index) {
+        List<RsEvent> current = snapshot;
+        if (current != null) {
+            return index >= 1 && index <= current.size() ? current.get(index - 1) : null;
+        }
+        return lookup(index);
+    }
+
+    /**
+     * The current list together with the id of the event at each position and the
+     * {@link #version()} it reflects, all taken from the same snapshot.
+     */
+    public synchronized RankedList rankedList() {
+        List<RsEvent> rsEvents = rebuild();
+        return new RankedList(rsEvents, snapshotIds, version);
+    }
+
+    /**
+     * A number that changes with every write to the list, so callers can tell cheaply whether
+     * anything happened since they last looked.
+     */
+    public long version() {
+        return version;
+    }
+
+    public synchronized void reload() {
+        clear();
+        Map<Integer, Double> scores = scorer.load();
+        for (RsEventSummaryDto summary : rsEventRepository.findAllSummaries()) {
+            put(summary, scores);
+        }
+        finishLoading(rankRepository.findAll());
+    }
+
+    /**
+     * Copies the current state for {@link RankingSnapshotter}, or returns {@code null} if the
+     * ranking has not been loaded. {@code voteWatermark} must be taken before the call.
+     */
+    public synchronized RankingSnapshot capture(int voteWatermark) {
+        if (!loaded) {
+            return null;
+        }
+        RankingSnapshot captured = new RankingSnapshot(System.currentTimeMillis(), voteWatermark, events.size());
+        int i = 0;
+        for (RankedEvent rankedEvent : unpinned) {
+            rankedEvent.copyTo(captured, i++, 0);
+        }
+        for (Integer rankPos : pinPositions) {
+            events.get(pins.get(rankPos)).copyTo(captured, i++, rankPos);
+        }
+        return captured;
+    }
+
+    void setSnapshotter(RankingSnapshotter snapshotter) {
+        this.snapshotter = snapshotter;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded && (snapshotter == null || !restore())) {
+            reload();
+        }
+    }
+
+    /**
+     * Loads the ranking from the last snapshot and brings it up to date: events added or voted on
+     * since are read again, pins come from the rank table, which has a row per bought position
+     * only, and events that lost their pin are dropped if the auction deleted them. If the event
+     * count still differs from the database, events were deleted while the node was down, and the
+     * snapshot is given up for a full {@link #reload()}.
+     */
+    private boolean restore() {
+        RankingSnapshot saved = snapshotter.read();
+        if (saved == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        clear();
+        Map<Integer, Double> scores = scorer.load();
+        for (int i = 0; i < saved.size(); i++) {
+            put(new RsEventSummaryDto(saved.ids[i], saved.eventNames[i], saved.keywords[i], saved.voteNums[i],
+                    saved.userIds[i]), scores);
+        }
+        for (RsEventSummaryDto summary
+                : rsEventRepository.findSummariesWithIdAbove(saved.maxEventId() - snapshotter.rewindIds())) {
+            put(summary, scores);
+        }
+        List<Integer> voted = new ArrayList<>(snapshotter.votedSince(saved));
+        for (int from = 0; from < voted.size(); from += RESTORE_CHUNK) {
+            List<Integer> chunk = voted.subList(from, Math.min(voted.size(), from + RESTORE_CHUNK));
+            for (RsEventSummaryDto summary : rsEventRepository.findSummariesByIds(chunk)) {
+                put(summary, scores);
+            }
+        }
+
+        List<RankDto> ranks = rankRepository.findAll();
+        Set<Integer> pinnedNow = new HashSet<>();
+        ranks.forEach(rankDto -> pinnedNow.add(rankDto.getRsEventId()));
+        Set<Integer> unpinnedSince = new HashSet<>();
+        for (int i = 0; i < saved.size(); i++) {
+            if (saved.pinnedRanks[i] != 0 && !pinnedNow.contains(saved.ids[i])) {
+                unpinnedSince.add(saved.ids[i]);
+            }
+        }
+        if (!unpinnedSince.isEmpty()) {
+            unpinnedSince.removeAll(rsEventRepository.findExistingIds(unpinnedSince));
+            unpinnedSince.forEach(this::remove);
+        }
+        if (rsEventRepository.count() != events.size()) {
+            LOGGER.info("ranking snapshot is missing deletions, reloading from the database");
+            return false;
+        }
+        finishLoading(ranks);
+        LOGGER.info("restored {} events of the ranking from a snapshot in {} ms", events.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return true;
+    }
+
+    private void clear() {
+        events.clear();
+        unpinned.clear();
+        pinPositions.clear();
+        pins.clear();
+        pinOf.clear();
+    }
+
+    /** Adds the event, or replaces it if it is already there. Only valid before the pins are set. */
+    private void put(RsEventSummaryDto summary, Map<Integer, Double> scores) {
+        Double score = scores.get(summary.getId());
+        RankedEvent rankedEvent = new RankedEvent(summary.getId(), summary.getEventName(),
+                summary.getKeyword(), summary.getUserId(), summary.getVoteNum(),
+                score == null ? scorer.initial(summary.getVoteNum()) : score);
+        RankedEvent previous = events.put(rankedEvent.getId(), rankedEvent);
+        if (previous != null) {
+            unpinned.remove(previous);
+        }
+        unpinned.add(rankedEvent);
+    }
+
+    private void finishLoading(List<RankDto> ranks) {
+        for (RankDto rankDto : ranks) {
+            pin(rankDto.getRankPos(), rankDto.getRsEventId());
+        }
+        loaded = true;
+        head = null;
+        snapshot = null;
+        version++;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRsEventAdded(RsEventAddedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        RankedEvent rankedEvent = new RankedEvent(event.getRsEventId(), event.getEventName(),
+                event.getKeyword(), event.getUserId(), event.getVoteNum(), scorer.initial(event.getVoteNum()));
+        events.put(rankedEvent.getId(), rankedEvent);
+        if (!pinOf.containsKey(rankedEvent.getId())) {
+            unpinned.add(rankedEvent);
+            dropHeadIfReached(unpinned.rank(rankedEvent));
+        } else {
+            head = null;
+        }
+        snapshot = null;
+        version++;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRsEventVoted(RsEventVotedEvent event) {
+        RankedEvent rankedEvent = loaded ? events.get(event.getRsEventId()) : null;
+        if (rankedEvent == null) {
+            return;
+        }
+        double factor = scorer.rescale(event.getTime());
+        if (factor != 1) {
+            rescale(factor);
+        }
+        int pinnedAt = pinOf.get(rankedEvent.getId());
+        if (pinnedAt == NONE) {
+            int before = unpinned.rank(rankedEvent);
+            unpinned.remove(rankedEvent);
+            vote(rankedEvent, event);
+            unpinned.add(rankedEvent);
+            dropHeadIfReached(Math.min(before, unpinned.rank(rankedEvent)));
+        } else {
+            vote(rankedEvent, event);
+            dropHeadIfReached(Math.min(pinnedAt - 1, unpinned.size()));
+        }
+        snapshot = null;
+        version++;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRankBought(RankBoughtEvent event) {
+        if (!loaded) {
+            return;
+        }
+        if (event.getReplacedRsEventId() != null) {
+            remove(event.getReplacedRsEventId());
+        }
+        pin(event.getRankPos(), event.getRsEventId());
+        head = null;
+        snapshot = null;
+        version++;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onUserDeleted(UserDeletedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        List<Integer> removed = new ArrayList<>();
+        for (RankedEvent rankedEvent : events.values()) {
+            if (rankedEvent.getUserId() == event.getUserId()) {
+                removed.add(rankedEvent.getId());
+            }
+        }
+        removed.forEach(this::remove);
+        head = null;
+        snapshot = null;
+        version++;
+    }
+
+    private void vote(RankedEvent rankedEvent, RsEventVotedEvent event) {
+        rankedEvent.setVoteNum(rankedEvent.getVoteNum() + event.getVoteNum());
+        rankedEvent.setScore(scorer.add(rankedEvent.getScore(), event.getVoteNum(), event.getTime()));
+    }
+
+    /**
+     * Multiplies every score by {@code factor}. That keeps the order in exact arithmetic, but rounding
+     * can make close scores equal, so the unpinned tree is filled again rather than trusted.
+     */
+    private void rescale(double factor) {
+        unpinned.clear();
+        for (RankedEvent rankedEvent : events.values()) {
+            rankedEvent.setScore(rankedEvent.getScore() * factor);
+            if (!pinOf.containsKey(rankedEvent.getId())) {
+                unpinned.add(rankedEvent);
+            }
+        }
+        head = null;
+    }
+
+    private synchronized List<RsEvent> rebuild() {
+        ensureLoaded();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        int[] ids = new int[events.size()];
+        List<RsEvent> result = materialize(ids);
+        snapshotIds = ids;
+        snapshot = result;
+        return snapshot;
+    }
+
+    private synchronized List<RsEvent> rebuildHead() {
+        ensureLoaded();
+        if (head == null) {
+            head = materialize(new int[Math.min(topK, events.size())]);
+        }
+        return head;
+    }
+
+    /**
+     * Merges pins and unpinned events into the first {@code ids.length} positions of the list,
+     * filling {@code ids} with the event id at each.
+     */
+    private List<RsEvent> materialize(int[] ids) {
+        long start = System.nanoTime();
+        List<RsEvent> result = new ArrayList<>(ids.length);
+        Iterator<RankedEvent> rest = unpinned.iterator();
+        Iterator<Integer> pinIterator = pinPositions.iterator();
+        Integer nextPin = pinIterator.hasNext() ? pinIterator.next() : null;
+        while (result.size() < ids.length && (rest.hasNext() || nextPin != null)) {
+            RankedEvent next;
+            if (nextPin != null && (nextPin <= result.size() + 1 || !rest.hasNext())) {
+                next = events.get(pins.get(nextPin));
+                nextPin = pinIterator.hasNext() ? pinIterator.next() : null;
+            } else {
+                next = rest.next();
+            }
+            ids[result.size()] = next.getId();
+            result.add(next.toRsEvent());
+        }
+        buildTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        scanned.record(result.size());
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Drops the top window if a change at the given unpinned rank can show within it. An unpinned
+     * event lands at least as far down the merged list as its rank, so ranks from {@code topK} on
+     * cannot, unless the pins pushed to the tail are in view because few events are unpinned.
+     */
+    private void dropHeadIfReached(int rank) {
+        if (rank < topK || unpinned.size() <= topK) {
+            head = null;
+        }
+    }
+
+    /**
+     * A pin takes its bought position unless fewer events precede it, in which case the pins run
+     * on consecutively after the last unpinned event. So position {@code index} is the pin bought
+     * for it if that pin is not pushed to the tail, otherwise the unpinned event after the pins in
+     * front of it, otherwise a tail pin.
+     */
+    private synchronized RsEvent lookup(int index) {
+        ensureLoaded();
+        int unpinnedCount = unpinned.size();
+        if (index < 1 || index > unpinnedCount + pinPositions.size()) {
+            return null;
+        }
+        int pinsBefore = pinPositions.rank(index);
+        if (pins.containsKey(index) && index <= unpinnedCount + pinsBefore + 1) {
+            return events.get(pins.get(index)).toRsEvent();
+        }
+        int unpinnedIndex = index - 1 - pinsBefore;
+        if (unpinnedIndex < unpinnedCount) {
+            return unpinned.get(unpinnedIndex).toRsEvent();
+        }
+        return events.get(pins.get(pinPositions.get(index - unpinnedCount - 1))).toRsEvent();
+    }
+
+    private void pin(int rankPos, int rsEventId) {
+        int previous = pins.remove(rankPos);
+        if (previous != NONE) {
+            pinOf.remove(previous);
+            pinPositions.remove(rankPos);
+            if (previous != rsEventId && events.containsKey(previous)) {
+                unpinned.add(events.get(previous));
+            }
+        }
+        RankedEvent rankedEvent = events.get(rsEventId);
+        if (rankedEvent == null) {
+            return;
+        }
+        int formerPos = pinOf.put(rsEventId, rankPos);
+        if (formerPos != NONE) {
+            pins.remove(formerPos);
+            pinPositions.remove(formerPos);
+        }
+        pins.put(rankPos, rsEventId);
+        pinPositions.add(rankPos);
+        unpinned.remove(rankedEvent);
+    }
+
+    private void remove(int rsEventId) {
+        RankedEvent rankedEvent = events.remove(rsEventId);
+        if (rankedEvent != null) {
+            unpinned.remove(rankedEvent);
+        }
+        int rankPos = pinOf.remove(rsEventId);
+        if (rankPos != NONE) {
+            pins.remove(rankPos);
+            pinPositions.remove(rankPos);
+        }
+    }
+
+    public static class RankedList {
+        private final List<RsEvent> rsEvents;
+        private final int[] ids;
+        private final long version;
+
+        RankedList(List<RsEvent> rsEvents, int[] ids, long version) {
+            this.rsEvents = rsEvents;
+            this.ids = ids;
+            this.version = version;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public List<RsEvent> getRsEvents() {
+            return rsEvents;
+        }
+
+        public int size() {
+            return rsEvents.size();
+        }
+
+        public int getId(int position) {
+            return ids[position - 1];
+        }
+
+        public RsEvent get(int position) {
+            return rsEvents.get(position - 1);
+        }
+    }
+
+    private static class RankedEvent {
+        private final int id;
+        private final String eventName;
+        private final String keyword;
+        private final int userId;
+        private int voteNum;
+        private double score;
+
+        RankedEvent(int id, String eventName, String keyword, int userId, int voteNum, double score) {
+            this.id = id;
+            this.eventName = eventName;
+            this.keyword = keyword;
+            this.userId = userId;
+            this.voteNum = voteNum;
+            this.score = score;
+        }
+
+        int getId() {
+            return id;
+        }
+
+        int getUserId() {
+            return userId;
+        }
+
+        int getVoteNum() {
+            return voteNum;
+        }
+
+        void setVoteNum(int voteNum) {
+            this.voteNum = voteNum;
+        }
+
+        double getScore() {
+            return score;
+        }
+
+        void setScore(double score) {
+            this.score = score;
+        }
+
+        void copyTo(RankingSnapshot snapshot, int i, int pinnedRank) {
+            snapshot.ids[i] = id;
+            snapshot.userIds[i] = userId;
+            snapshot.voteNums[i] = voteNum;
+            snapshot.pinnedRanks[i] = pinnedRank;
+            snapshot.eventNames[i] = eventName;
+            snapshot.keywords[i] = keyword;
+        }
+
+        RsEvent toRsEvent() {
+            return RsEvent.builder()
+                    .eventName(eventName)
+                    .keyword(keyword)
+                    .voteNum(voteNum)
+                    .userId(userId)
+                    .build();
+        }
+    }
+}
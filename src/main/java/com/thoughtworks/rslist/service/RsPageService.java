@@ -0,0 +1,172 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.RsEventPage;
+import com.thoughtworks.rslist.dto.RankedRsEventDto;
+import com.thoughtworks.rslist.dto.RsEventSummaryDto;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.OffsetPageRequest;
+import com.thoughtworks.rslist.repository.RankRepository;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Pages through the hot-search list in the database instead of loading every event.
+ *
+ * <p>Bought ranks are few, so they are read in full; the unpinned events are fetched already
+ * ordered by {@code voteNum desc, id asc} and limited to one page, either by offset or, for deep
+ * pages, by a keyset cursor holding the last {@code (voteNum, id)} that was returned.
+ */
+@Service
+public class RsPageService {
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final String CURSOR_VERSION = "v1";
+
+    final RsEventRepository rsEventRepository;
+    final RankRepository rankRepository;
+
+    public RsPageService(RsEventRepository rsEventRepository, RankRepository rankRepository) {
+        this.rsEventRepository = rsEventRepository;
+        this.rankRepository = rankRepository;
+    }
+
+    public RsEventPage pageFrom(int start, int size) {
+        if (start < 1 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new RequestNotValidException("invalid index");
+        }
+        List<RankedRsEventDto> pins = rankRepository.findAllRankedRsEvents();
+        int offset = start - 1 - countPinsBefore(pins, start);
+        List<RsEventSummaryDto> rows = rsEventRepository.findUnpinnedOrderByVoteNum(new OffsetPageRequest(offset, size));
+        Long unpinnedTotal = null;
+        if (rows.size() < size) {
+            unpinnedTotal = rows.isEmpty() && offset > 0 ? rsEventRepository.countUnpinned() : offset + rows.size();
+        }
+        return assemble(start, size, pins, rows, unpinnedTotal, null);
+    }
+
+    public RsEventPage pageAfter(String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new RequestNotValidException("invalid index");
+        }
+        Cursor position = Cursor.decode(cursor);
+        if (position.lastId == null) {
+            return pageFrom(position.start, size);
+        }
+        List<RankedRsEventDto> pins = rankRepository.findAllRankedRsEvents();
+        int offset = position.start - 1 - countPinsBefore(pins, position.start);
+        List<RsEventSummaryDto> rows = rsEventRepository.findUnpinnedAfter(
+                position.lastVoteNum, position.lastId, PageRequest.of(0, size));
+        Long unpinnedTotal = rows.size() < size ? (long) offset + rows.size() : null;
+        return assemble(position.start, size, pins, rows, unpinnedTotal, position);
+    }
+
+    private RsEventPage assemble(int start, int size, List<RankedRsEventDto> pins, List<RsEventSummaryDto> rows,
+                                 Long unpinnedTotal, Cursor previous) {
+        int[] positions = new int[pins.size()];
+        for (int i = 0; i < pins.size(); i++) {
+            int rankPos = pins.get(i).getRankPos();
+            positions[i] = unpinnedTotal == null ? rankPos : (int) Math.min(rankPos, unpinnedTotal + i + 1);
+        }
+        int pinIndex = 0;
+        while (pinIndex < positions.length && positions[pinIndex] < start) {
+            pinIndex++;
+        }
+        List<RsEvent> rsEvents = new ArrayList<>(size);
+        RsEventSummaryDto lastRow = null;
+        int rowIndex = 0;
+        int position = start;
+        while (rsEvents.size() < size) {
+            if (pinIndex < positions.length && positions[pinIndex] == position) {
+                rsEvents.add(toRsEvent(pins.get(pinIndex++)));
+            } else if (rowIndex < rows.size()) {
+                lastRow = rows.get(rowIndex++);
+                rsEvents.add(toRsEvent(lastRow));
+            } else {
+                break;
+            }
+            position++;
+        }
+
+        String nextCursor = null;
+        boolean exhausted = unpinnedTotal != null && position > unpinnedTotal + pins.size();
+        if (rsEvents.size() == size && !exhausted) {
+            if (lastRow != null) {
+                nextCursor = new Cursor(position, lastRow.getVoteNum(), lastRow.getId()).encode();
+            } else if (previous != null) {
+                nextCursor = new Cursor(position, previous.lastVoteNum, previous.lastId).encode();
+            } else {
+                nextCursor = new Cursor(position, 0, null).encode();
+            }
+        }
+        return RsEventPage.builder().rsEvents(rsEvents).nextCursor(nextCursor).build();
+    }
+
+    private int countPinsBefore(List<RankedRsEventDto> pins, int start) {
+        int count = 0;
+        while (count < pins.size() && pins.get(count).getRankPos() < start) {
+            count++;
+        }
+        return count;
+    }
+
+    private RsEvent toRsEvent(RsEventSummaryDto rsEventSummaryDto) {
+        return RsEvent.builder()
+                .eventName(rsEventSummaryDto.getEventName())
+                .keyword(rsEventSummaryDto.getKeyword())
+                .voteNum(rsEventSummaryDto.getVoteNum())
+                .userId(rsEventSummaryDto.getUserId())
+                .build();
+    }
+
+    private RsEvent toRsEvent(RankedRsEventDto rankedRsEventDto) {
+        return RsEvent.builder()
+                .eventName(rankedRsEventDto.getEventName())
+                .keyword(rankedRsEventDto.getKeyword())
+                .voteNum(rankedRsEventDto.getVoteNum())
+                .userId(rankedRsEventDto.getUserId())
+                .build();
+    }
+
+    private static class Cursor {
+        final int start;
+        final int lastVoteNum;
+        final Integer lastId;
+
+        Cursor(int start, int lastVoteNum, Integer lastId) {
+            this.start = start;
+            this.lastVoteNum = lastVoteNum;
+            this.lastId = lastId;
+        }
+
+        String encode() {
+            String raw = lastId == null
+                    ? CURSOR_VERSION + ":" + start
+                    : CURSOR_VERSION + ":" + start + ":" + lastVoteNum + ":" + lastId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+                if (!CURSOR_VERSION.equals(parts[0]) || (parts.length != 2 && parts.length != 4)) {
+                    throw new RequestNotValidException("invalid cursor");
+                }
+                int start = Integer.parseInt(parts[1]);
+                if (start < 1) {
+                    throw new RequestNotValidException("invalid cursor");
+                }
+                return parts.length == 2
+                        ? new Cursor(start, 0, null)
+                        : new Cursor(start, Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+            } catch (IllegalArgumentException e) {
+                throw new RequestNotValidException("invalid cursor");
+            }
+        }
+    }
+}
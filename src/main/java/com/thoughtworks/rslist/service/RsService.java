@@ -3,8 +3,15 @@ package com.thoughtworks.rslist.service;
 import com.thoughtworks.rslist.domain.Trade;
 import com.thoughtworks.rslist.domain.Vote;
 import com.thoughtworks.rslist.dto.*;
+import com.thoughtworks.rslist.event.RsEventVotedEvent;
+import com.thoughtworks.rslist.exception.VoteRejectedException;
 import com.thoughtworks.rslist.repository.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -12,68 +19,112 @@ import java.util.Optional;
 public class RsService {
     final RsEventRepository rsEventRepository;
     final UserRepository userRepository;
-    final VoteRepository voteRepository;
-    final RankRepository rankRepository;
-    final RankRecordRepository rankRecordRepository;
+    final HistoryWriter historyWriter;
+    final ApplicationEventPublisher eventPublisher;
+    final VoteWriteBehindBuffer voteWriteBehindBuffer;
+    final RankAuction rankAuction;
+    final UserCache userCache;
+    final MeterRegistry meterRegistry;
+    VoteMode voteMode = VoteMode.DIRECT;
 
     public RsService(RsEventRepository rsEventRepository, UserRepository userRepository,
-                     VoteRepository voteRepository, RankRepository rankRepository,
-                     RankRecordRepository rankRecordRepository) {
+                     HistoryWriter historyWriter, ApplicationEventPublisher eventPublisher,
+                     VoteWriteBehindBuffer voteWriteBehindBuffer, RankAuction rankAuction,
+                     UserCache userCache, MeterRegistry meterRegistry) {
         this.rsEventRepository = rsEventRepository;
         this.userRepository = userRepository;
-        this.voteRepository = voteRepository;
-        this.rankRepository = rankRepository;
-        this.rankRecordRepository = rankRecordRepository;
+        this.historyWriter = historyWriter;
+        this.eventPublisher = eventPublisher;
+        this.voteWriteBehindBuffer = voteWriteBehindBuffer;
+        this.rankAuction = rankAuction;
+        this.userCache = userCache;
+        this.meterRegistry = meterRegistry;
     }
 
+    @Value("${rs.vote.mode:direct}")
+    public void setVoteMode(String voteMode) {
+        this.voteMode = VoteMode.fromValue(voteMode);
+    }
+
+    @Transactional
     public void vote(Vote vote, int rsEventId) {
+        String mode = voteMode.name().toLowerCase();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            castVote(vote, rsEventId);
+            sample.stop(meterRegistry.timer("rs.vote", "mode", mode, "outcome", "accepted"));
+        } catch (VoteRejectedException e) {
+            sample.stop(meterRegistry.timer("rs.vote", "mode", mode, "outcome", "rejected"));
+            meterRegistry.counter("rs.vote.rejected", "mode", mode, "reason", e.getReason()).increment();
+            throw e;
+        }
+    }
+
+    private void castVote(Vote vote, int rsEventId) {
+        if (voteMode == VoteMode.ATOMIC) {
+            voteAtomically(vote, rsEventId);
+            return;
+        }
+        if (voteMode == VoteMode.WRITE_BEHIND) {
+            voteWriteBehindBuffer.vote(vote, rsEventId);
+            eventPublisher.publishEvent(
+                    new RsEventVotedEvent(rsEventId, vote.getUserId(), vote.getVoteNum(), vote.getTime()));
+            return;
+        }
         Optional<RsEventDto> rsEventDto = rsEventRepository.findById(rsEventId);
-        Optional<UserDto> userDto = userRepository.findById(vote.getUserId());
-        if (!rsEventDto.isPresent()
-                || !userDto.isPresent()
-                || vote.getVoteNum() > userDto.get().getVoteNum()) {
-            throw new RuntimeException();
+        Optional<UserSummaryDto> user = userCache.find(vote.getUserId());
+        if (!rsEventDto.isPresent()) {
+            throw new VoteRejectedException(VoteRejectedException.UNKNOWN_EVENT);
+        }
+        if (!user.isPresent()) {
+            throw new VoteRejectedException(VoteRejectedException.UNKNOWN_USER);
+        }
+        // the cached balance may be stale, so it only turns away votes early; the debit decides
+        if (vote.getVoteNum() > user.get().getVoteNum()
+                || userRepository.decreaseVoteNumIfEnough(vote.getUserId(), vote.getVoteNum()) == 0) {
+            throw new VoteRejectedException(VoteRejectedException.INSUFFICIENT_VOTES);
         }
         VoteDto voteDto =
                 VoteDto.builder()
                         .localDateTime(vote.getTime())
                         .num(vote.getVoteNum())
                         .rsEvent(rsEventDto.get())
-                        .user(userDto.get())
+                        .user(UserDto.builder().id(vote.getUserId()).build())
                         .build();
-        voteRepository.save(voteDto);
-        UserDto user = userDto.get();
-        user.setVoteNum(user.getVoteNum() - vote.getVoteNum());
-        userRepository.save(user);
+        historyWriter.append(voteDto);
         RsEventDto rsEvent = rsEventDto.get();
         rsEvent.setVoteNum(rsEvent.getVoteNum() + vote.getVoteNum());
         rsEventRepository.save(rsEvent);
+        eventPublisher.publishEvent(
+                new RsEventVotedEvent(rsEventId, vote.getUserId(), vote.getVoteNum(), vote.getTime()));
     }
 
-
-    public void buy(Trade trade, int eventId) throws Exception {
-        int rank = trade.getRank();
-        Optional<RankDto> optionalRankDto = rankRepository.findRankDtoByRankPos(rank);
-        if (!optionalRankDto.isPresent()) {
-            RankDto rankDto = RankDto.builder().rankPos(rank).price(trade.getAmount()).rsEventId(eventId).build();
-            rankRepository.save(rankDto);
-            rankRecordRepository.save(rankDtoConvertRankRecordDto(rankDto));
-        } else {
-            RankDto rankDto = optionalRankDto.get();
-            if (trade.getAmount() > rankDto.getPrice()) {
-                rsEventRepository.deleteById(rankDto.getRsEventId());
-                rankDto.setRsEventId(eventId);
-                rankDto.setPrice(trade.getAmount());
-                rankRepository.save(rankDto);
-                rankRecordRepository.save(rankDtoConvertRankRecordDto(rankDto));
-            } else {
-                throw new Exception("buy rank failed");
-            }
+    /**
+     * Debits and credits with conditional in-place updates instead of loading the entities, so
+     * concurrent votes can neither overdraw a user nor lose an increment.
+     */
+    private void voteAtomically(Vote vote, int rsEventId) {
+        int num = vote.getVoteNum();
+        if (num <= 0) {
+            throw new VoteRejectedException(VoteRejectedException.INVALID_NUM);
+        }
+        if (userRepository.decreaseVoteNumIfEnough(vote.getUserId(), num) == 0) {
+            throw new VoteRejectedException(userCache.exists(vote.getUserId())
+                    ? VoteRejectedException.INSUFFICIENT_VOTES : VoteRejectedException.UNKNOWN_USER);
+        }
+        if (rsEventRepository.increaseVoteNum(rsEventId, num) == 0) {
+            throw new VoteRejectedException(VoteRejectedException.UNKNOWN_EVENT);
         }
+        historyWriter.append(VoteDto.builder()
+                .localDateTime(vote.getTime())
+                .num(num)
+                .rsEvent(RsEventDto.builder().id(rsEventId).build())
+                .user(UserDto.builder().id(vote.getUserId()).build())
+                .build());
+        eventPublisher.publishEvent(new RsEventVotedEvent(rsEventId, vote.getUserId(), num, vote.getTime()));
     }
 
-    public RankRecordDto rankDtoConvertRankRecordDto(RankDto rankDto){
-       return RankRecordDto.builder().price(rankDto.getPrice()).rankPos(rankDto.getRankPos())
-                .rsEventId(rankDto.getRsEventId()).build();
+    public void buy(Trade trade, int eventId) {
+        rankAuction.bid(trade, eventId);
     }
 }
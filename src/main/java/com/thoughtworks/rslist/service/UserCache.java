@@ -0,0 +1,73 @@
+package com.thoughtworks.rslist.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.thoughtworks.rslist.dto.UserSummaryDto;
+import com.thoughtworks.rslist.event.RsEventVotedEvent;
+import com.thoughtworks.rslist.event.UserDeletedEvent;
+import com.thoughtworks.rslist.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache of {@link UserSummaryDto} in front of {@link UserRepository}, so adding events
+ * and voting don't load the full user entity on every request.
+ *
+ * <p>Entries are bounded by size and expire a fixed time after they were loaded. Unknown ids are
+ * cached too, which is why {@link #invalidate} has to be called when a user is registered. Vote
+ * balances are kept current by applying each committed vote to the cached entry rather than
+ * evicting it, so a user voting repeatedly stays a hit.
+ */
+@Component
+public class UserCache {
+    private final UserRepository userRepository;
+    private final Cache<Integer, Optional<UserSummaryDto>> cache;
+
+    public UserCache(UserRepository userRepository,
+                     @Value("${rs.user-cache.maximum-size:10000}") long maximumSize,
+                     @Value("${rs.user-cache.ttl-seconds:300}") long ttlSeconds,
+                     MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
+
+    public Optional<UserSummaryDto> find(int userId) {
+        return cache.get(userId, userRepository::findSummaryById);
+    }
+
+    public boolean exists(int userId) {
+        return find(userId).isPresent();
+    }
+
+    public void invalidate(int userId) {
+        cache.invalidate(userId);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRsEventVoted(RsEventVotedEvent event) {
+        cache.asMap().computeIfPresent(event.getUserId(), (userId, user) -> user.map(summary ->
+                new UserSummaryDto(summary.getId(), summary.getUserName(),
+                        summary.getVoteNum() - event.getVoteNum())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        invalidate(event.getUserId());
+    }
+}
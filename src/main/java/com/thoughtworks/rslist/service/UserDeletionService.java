@@ -0,0 +1,76 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.event.UserDeletedEvent;
+import com.thoughtworks.rslist.repository.RankRepository;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Deletes a user together with their events, the votes cast by or for them and the ranks their
+ * events hold, with set-based statements instead of loading and removing entities one by one.
+ *
+ * <p>Votes are the only rows that grow without bound, so they are removed first in chunks of
+ * {@code rs.user-delete.chunk-size}, each in its own short transaction. A final transaction then
+ * catches votes cast meanwhile and deletes the ranks, events and the user, and publishes
+ * {@link UserDeletedEvent} for the in-memory state. If the deletion stops half way, only votes are
+ * gone, and deleting the user again finishes it.
+ */
+@Service
+public class UserDeletionService {
+    private final UserRepository userRepository;
+    private final RsEventRepository rsEventRepository;
+    private final VoteRepository voteRepository;
+    private final RankRepository rankRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public UserDeletionService(UserRepository userRepository, RsEventRepository rsEventRepository,
+                               VoteRepository voteRepository, RankRepository rankRepository,
+                               ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                               @Value("${rs.user-delete.chunk-size:1000}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.rsEventRepository = rsEventRepository;
+        this.voteRepository = voteRepository;
+        this.rankRepository = rankRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public void delete(int userId) {
+        deleteVotesInChunks(pageable -> voteRepository.findIdsByVoter(userId, pageable));
+        deleteVotesInChunks(pageable -> voteRepository.findIdsOnEventsOf(userId, pageable));
+        transactionTemplate.execute(status -> {
+            voteRepository.deleteAllOfUser(userId);
+            rankRepository.deleteAllOfUser(userId);
+            rsEventRepository.deleteAllOfUser(userId);
+            userRepository.deleteInBulkById(userId);
+            eventPublisher.publishEvent(new UserDeletedEvent(userId));
+            return null;
+        });
+    }
+
+    private void deleteVotesInChunks(Function<PageRequest, List<Integer>> nextIds) {
+        PageRequest firstChunk = PageRequest.of(0, chunkSize);
+        while (true) {
+            Integer deleted = transactionTemplate.execute(status -> {
+                List<Integer> ids = nextIds.apply(firstChunk);
+                return ids.isEmpty() ? 0 : voteRepository.deleteByIds(ids);
+            });
+            if (deleted == null || deleted < chunkSize) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.thoughtworks.rslist.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Scores events by their cumulative vote count.
+ */
+@Component
+@ConditionalOnProperty(name = "rs.list.scoring", havingValue = "votes", matchIfMissing = true)
+public class VoteCountScorer implements RankingScorer {
+    @Override
+    public Map<Integer, Double> load() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public double initial(int voteNum) {
+        return voteNum;
+    }
+
+    @Override
+    public double add(double score, int voteNum, LocalDateTime time) {
+        return score + voteNum;
+    }
+
+    @Override
+    public double rescale(LocalDateTime time) {
+        return 1;
+    }
+}
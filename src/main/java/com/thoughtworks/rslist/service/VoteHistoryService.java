@@ -0,0 +1,93 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.domain.VotePage;
+import com.thoughtworks.rslist.dto.VoteRecordDto;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Pages through the votes of one user for one event in {@code (localDateTime, id)} order.
+ *
+ * <p>Each page starts after the last {@code (localDateTime, id)} of the previous one, which the
+ * cursor carries, so a deep page costs the same index range scan as the first and no total is
+ * ever counted. Rows are read as {@link VoteRecordDto} projections rather than entities.
+ */
+@Service
+public class VoteHistoryService {
+    private static final String CURSOR_VERSION = "v1";
+
+    private final VoteRepository voteRepository;
+    private final int maxPageSize;
+
+    public VoteHistoryService(VoteRepository voteRepository,
+                              @Value("${rs.vote-record.max-page-size:100}") int maxPageSize) {
+        this.voteRepository = voteRepository;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public VotePage pageAfter(int userId, int rsEventId, String cursor, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new RequestNotValidException("invalid page size");
+        }
+        PageRequest limit = PageRequest.of(0, size);
+        List<VoteRecordDto> rows;
+        if (cursor == null) {
+            rows = voteRepository.findRecordsByUserAndEvent(userId, rsEventId, limit);
+        } else {
+            Cursor position = Cursor.decode(cursor);
+            rows = voteRepository.findRecordsByUserAndEventAfter(userId, rsEventId, position.lastTime,
+                    position.lastId, limit);
+        }
+
+        String nextCursor = null;
+        if (rows.size() == size) {
+            VoteRecordDto last = rows.get(rows.size() - 1);
+            nextCursor = new Cursor(last.getLocalDateTime(), last.getId()).encode();
+        }
+        List<Vote> votes = rows.stream()
+                .map(record -> new Vote(record.getUserId(), record.getRsEventId(), record.getLocalDateTime(),
+                        record.getNum()))
+                .collect(Collectors.toList());
+        return VotePage.builder().votes(votes).nextCursor(nextCursor).build();
+    }
+
+    private static class Cursor {
+        final LocalDateTime lastTime;
+        final int lastId;
+
+        Cursor(LocalDateTime lastTime, int lastId) {
+            this.lastTime = lastTime;
+            this.lastId = lastId;
+        }
+
+        String encode() {
+            String raw = CURSOR_VERSION + ":" + lastId + ":" + lastTime;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                // the time goes last because its ISO form has colons of its own
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                        .split(":", 3);
+                if (parts.length != 3 || !CURSOR_VERSION.equals(parts[0])) {
+                    throw new RequestNotValidException("invalid cursor");
+                }
+                return new Cursor(LocalDateTime.parse(parts[2]), Integer.parseInt(parts[1]));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new RequestNotValidException("invalid cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.thoughtworks.rslist.service;
+
+public enum VoteMode {
+    DIRECT,
+    ATOMIC,
+    WRITE_BEHIND;
+
+    public static VoteMode fromValue(String value) {
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+}
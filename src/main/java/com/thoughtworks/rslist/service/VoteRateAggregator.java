@@ -0,0 +1,204 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.domain.VoteRate;
+import com.thoughtworks.rslist.event.RsEventVotedEvent;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.util.IntIntMap;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Votes per event over the last minute, five minutes and hour, kept in memory.
+ *
+ * <p>Each event has a row of {@value #BUCKETS} one-minute buckets in a shared {@code int[]}, used
+ * as a ring indexed by minute, together with the last minute the row was written in. Buckets the
+ * ring has wrapped past are cleared when the row is next written, and reads only sum the buckets
+ * that are still inside the window, so nothing runs per minute in the background.
+ *
+ * <p>The state is built on first use from one streaming scan over the votes of the last hour and
+ * then kept up to date from {@link RsEventVotedEvent}. Vote times come from the client, so a time
+ * in the future counts as now. A row whose votes have all aged out of the hour is freed, by
+ * {@link #trending} and before the arrays grow, so the rows only cover events voted on within the
+ * hour and deleted events drop out with their last votes.
+ */
+@Component
+public class VoteRateAggregator {
+    public static final int MAX_TRENDING = 100;
+    static final int BUCKETS = 60;
+    private static final int NO_ROW = -1;
+
+    private final VoteRepository voteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final IntIntMap rows = new IntIntMap(NO_ROW);
+    private int[] rsEventIds = new int[1024];
+    private long[] lastMinutes = new long[1024];
+    private int[] buckets = new int[1024 * BUCKETS];
+    private boolean loaded;
+    private Clock clock = Clock.systemDefaultZone();
+
+    public VoteRateAggregator(VoteRepository voteRepository, PlatformTransactionManager transactionManager) {
+        this.voteRepository = voteRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public synchronized VoteRate rate(int rsEventId) {
+        load();
+        int row = rows.get(rsEventId);
+        long now = currentMinute();
+        return row == NO_ROW ? new VoteRate(rsEventId, 0, 0, 0) : rate(row, now);
+    }
+
+    /**
+     * The {@code limit} events with the most votes over the last {@code minutes} minutes, most
+     * first, leaving out events without any.
+     */
+    public synchronized List<VoteRate> trending(int minutes, int limit) {
+        if (minutes < 1 || minutes > BUCKETS || limit < 1 || limit > MAX_TRENDING) {
+            throw new RequestNotValidException("invalid window");
+        }
+        load();
+        long now = currentMinute();
+        freeExpiredRows(now);
+        List<int[]> counts = new ArrayList<>();
+        for (int row = 0; row < rows.size(); row++) {
+            int count = sum(row, now, minutes);
+            if (count > 0) {
+                counts.add(new int[]{row, count});
+            }
+        }
+        counts.sort(Comparator.<int[]>comparingInt(entry -> entry[1]).reversed()
+                .thenComparingInt(entry -> rsEventIds[entry[0]]));
+        List<VoteRate> result = new ArrayList<>(Math.min(limit, counts.size()));
+        for (int i = 0; i < counts.size() && i < limit; i++) {
+            result.add(rate(counts.get(i)[0], now));
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRsEventVoted(RsEventVotedEvent event) {
+        if (loaded) {
+            add(event.getRsEventId(), event.getTime(), event.getVoteNum());
+        }
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        LocalDateTime since = LocalDateTime.now(clock).minusMinutes(BUCKETS);
+        transactionTemplate.execute(status -> {
+            try (Stream<Vote> votes = voteRepository.streamSince(since)) {
+                votes.forEach(vote -> add(vote.getRsEventId(), vote.getTime(), vote.getVoteNum()));
+            }
+            return null;
+        });
+        loaded = true;
+    }
+
+    private void add(int rsEventId, LocalDateTime time, int voteNum) {
+        long now = currentMinute();
+        long minute = time == null ? now : Math.min(minuteOf(time), now);
+        int row = rows.get(rsEventId);
+        if (row == NO_ROW) {
+            row = newRow(rsEventId, minute, now);
+        }
+        long lastMinute = lastMinutes[row];
+        if (minute > lastMinute) {
+            for (long m = Math.max(lastMinute + 1, minute - BUCKETS + 1); m <= minute; m++) {
+                buckets[bucket(row, m)] = 0;
+            }
+            lastMinutes[row] = minute;
+        } else if (minute <= lastMinute - BUCKETS) {
+            return;
+        }
+        buckets[bucket(row, minute)] += voteNum;
+    }
+
+    private int newRow(int rsEventId, long minute, long now) {
+        if (rows.size() == rsEventIds.length) {
+            freeExpiredRows(now);
+        }
+        int row = rows.size();
+        if (row == rsEventIds.length) {
+            rsEventIds = Arrays.copyOf(rsEventIds, row * 2);
+            lastMinutes = Arrays.copyOf(lastMinutes, row * 2);
+            buckets = Arrays.copyOf(buckets, row * 2 * BUCKETS);
+        }
+        rows.put(rsEventId, row);
+        rsEventIds[row] = rsEventId;
+        lastMinutes[row] = minute;
+        return row;
+    }
+
+    /**
+     * Frees the rows with no votes left in the hour. The last row moves into each freed slot, so
+     * the rows stay packed at the front of the arrays.
+     */
+    private void freeExpiredRows(long now) {
+        for (int row = rows.size() - 1; row >= 0; row--) {
+            if (lastMinutes[row] > now - BUCKETS) {
+                continue;
+            }
+            rows.remove(rsEventIds[row]);
+            int last = rows.size();
+            if (row != last) {
+                rsEventIds[row] = rsEventIds[last];
+                lastMinutes[row] = lastMinutes[last];
+                System.arraycopy(buckets, last * BUCKETS, buckets, row * BUCKETS, BUCKETS);
+                rows.put(rsEventIds[row], row);
+            }
+        }
+    }
+
+    int rowCount() {
+        return rows.size();
+    }
+
+    private VoteRate rate(int row, long now) {
+        return new VoteRate(rsEventIds[row], sum(row, now, 1), sum(row, now, 5), sum(row, now, BUCKETS));
+    }
+
+    /**
+     * Votes of the row in the minutes {@code (now - minutes, now]}; of those, only the ones up to
+     * the row's last write are still in its ring.
+     */
+    private int sum(int row, long now, int minutes) {
+        long last = Math.min(lastMinutes[row], now);
+        long first = Math.max(now - minutes + 1, lastMinutes[row] - BUCKETS + 1);
+        int total = 0;
+        for (long m = first; m <= last; m++) {
+            total += buckets[bucket(row, m)];
+        }
+        return total;
+    }
+
+    private int bucket(int row, long minute) {
+        return row * BUCKETS + (int) Math.floorMod(minute, (long) BUCKETS);
+    }
+
+    private long currentMinute() {
+        return clock.millis() / 60_000;
+    }
+
+    private long minuteOf(LocalDateTime time) {
+        return time.atZone(clock.getZone()).toInstant().toEpochMilli() / 60_000;
+    }
+}
@@ -0,0 +1,411 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.dto.VoteJournalCheckpointDto;
+import com.thoughtworks.rslist.event.RankBoughtEvent;
+import com.thoughtworks.rslist.event.UserDeletedEvent;
+import com.thoughtworks.rslist.exception.VoteRejectedException;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteJournalCheckpointRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind vote ingestion used when {@code rs.vote.mode=write-behind}.
+ *
+ * <p>A vote is checked against an in-memory balance (debited with CAS), appended and fsynced to a
+ * local journal segment, and acknowledged. A scheduled flusher seals the current segment, folds the
+ * pending votes into one {@code vote_num + ?} update per event and per user plus a batch of vote
+ * rows, and records the sealed segment number in the same transaction. On startup every segment
+ * newer than that checkpoint is replayed, so an acknowledged vote is applied exactly once even if
+ * the process dies between the commit and the segment deletion.
+ *
+ * <p>Balances are authoritative in memory while this mode is on, which assumes a single node
+ * ingests votes.
+ */
+@Component
+public class VoteWriteBehindBuffer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VoteWriteBehindBuffer.class);
+    private static final String SEGMENT_PREFIX = "votes-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final RsEventRepository rsEventRepository;
+    private final UserRepository userRepository;
+    private final VoteRepository voteRepository;
+    private final VoteJournalCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Path journalDir;
+    private final String nodeId;
+
+    private final ConcurrentHashMap<Integer, AtomicInteger> balances = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, LongAdder> pendingVoteNums = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<PendingVote> pendingVotes = new ConcurrentLinkedQueue<>();
+    private final Set<Integer> knownEvents = ConcurrentHashMap.newKeySet();
+    private final ReadWriteLock segmentLock = new ReentrantReadWriteLock();
+    private final Object flushLock = new Object();
+    private FileChannel journal;
+    private long segment;
+
+    public VoteWriteBehindBuffer(RsEventRepository rsEventRepository, UserRepository userRepository,
+                                 VoteRepository voteRepository, VoteJournalCheckpointRepository checkpointRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${rs.vote.mode:direct}") String voteMode,
+                                 @Value("${rs.vote.write-behind.journal-dir:data/vote-journal}") String journalDir,
+                                 @Value("${rs.vote.write-behind.node-id:rs-list}") String nodeId) {
+        this.rsEventRepository = rsEventRepository;
+        this.userRepository = userRepository;
+        this.voteRepository = voteRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = VoteMode.fromValue(voteMode) == VoteMode.WRITE_BEHIND;
+        this.journalDir = Paths.get(journalDir);
+        this.nodeId = nodeId;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(journalDir);
+        long flushedSegment = checkpointRepository.findById(nodeId)
+                .map(VoteJournalCheckpointDto::getFlushedSegment).orElse(0L);
+        TreeMap<Long, Path> segments = listSegments();
+        segment = Math.max(flushedSegment, segments.isEmpty() ? 0 : segments.lastKey());
+        for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+            if (entry.getKey() > flushedSegment) {
+                List<PendingVote> votes = readSegment(entry.getValue());
+                LOGGER.info("replaying {} journaled votes from {}", votes.size(), entry.getValue());
+                persist(votes, entry.getKey()).forEach(this::refund);
+            }
+            Files.delete(entry.getValue());
+        }
+        openSegment(segment + 1);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        flush();
+        journal.close();
+    }
+
+    /**
+     * Validates and debits the vote in memory and makes it durable in the journal. Returns only
+     * after the journal write has been forced to disk.
+     */
+    public void vote(Vote vote, int rsEventId) {
+        int num = vote.getVoteNum();
+        if (num <= 0) {
+            throw new VoteRejectedException(VoteRejectedException.INVALID_NUM);
+        }
+        if (!isKnownEvent(rsEventId)) {
+            throw new VoteRejectedException(VoteRejectedException.UNKNOWN_EVENT);
+        }
+        AtomicInteger balance = balanceOf(vote.getUserId());
+        int current;
+        do {
+            current = balance.get();
+            if (current < num) {
+                throw new VoteRejectedException(VoteRejectedException.INSUFFICIENT_VOTES);
+            }
+        } while (!balance.compareAndSet(current, current - num));
+
+        PendingVote pendingVote = new PendingVote(vote.getUserId(), rsEventId, num, vote.getTime());
+        FileChannel channel;
+        segmentLock.readLock().lock();
+        try {
+            channel = journal;
+            channel.write(ByteBuffer.wrap(pendingVote.toJournalLine().getBytes(StandardCharsets.UTF_8)));
+            pendingVotes.add(pendingVote);
+            pendingVoteNums.computeIfAbsent(rsEventId, id -> new LongAdder()).add(num);
+        } catch (IOException e) {
+            balance.addAndGet(num);
+            throw new UncheckedIOException(e);
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // the segment was sealed by a flush, which forces it before closing
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long pendingVoteNum(int rsEventId) {
+        LongAdder adder = pendingVoteNums.get(rsEventId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${rs.vote.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (flushLock) {
+            List<PendingVote> votes = new ArrayList<>();
+            long sealedSegment;
+            segmentLock.writeLock().lock();
+            try {
+                PendingVote pendingVote;
+                while ((pendingVote = pendingVotes.poll()) != null) {
+                    votes.add(pendingVote);
+                }
+                if (votes.isEmpty()) {
+                    return;
+                }
+                sealedSegment = segment;
+                journal.force(false);
+                journal.close();
+                openSegment(segment + 1);
+            } catch (IOException e) {
+                pendingVotes.addAll(votes);
+                throw new UncheckedIOException(e);
+            } finally {
+                segmentLock.writeLock().unlock();
+            }
+
+            List<PendingVote> rejected;
+            try {
+                rejected = persist(votes, sealedSegment);
+            } catch (RuntimeException e) {
+                LOGGER.warn("flushing {} votes failed, will retry", votes.size(), e);
+                pendingVotes.addAll(votes);
+                return;
+            }
+            rejected.forEach(this::refund);
+            for (PendingVote vote : votes) {
+                pendingVoteNums.get(vote.rsEventId).add(-vote.num);
+            }
+            deleteSegmentsUpTo(sealedSegment);
+        }
+    }
+
+    /**
+     * Forgets the user's balance and drops their votes that have not been flushed yet. Votes a
+     * flush has already taken, or that are only left in the journal, are dropped by
+     * {@link #persist} once it finds the user gone.
+     */
+    @EventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        int userId = event.getUserId();
+        balances.remove(userId);
+        knownEvents.clear();
+        segmentLock.writeLock().lock();
+        try {
+            List<PendingVote> kept = new ArrayList<>();
+            PendingVote pendingVote;
+            while ((pendingVote = pendingVotes.poll()) != null) {
+                if (pendingVote.userId == userId) {
+                    pendingVoteNums.get(pendingVote.rsEventId).add(-pendingVote.num);
+                } else {
+                    kept.add(pendingVote);
+                }
+            }
+            pendingVotes.addAll(kept);
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onRankBought(RankBoughtEvent event) {
+        if (event.getReplacedRsEventId() != null) {
+            knownEvents.remove(event.getReplacedRsEventId());
+        }
+    }
+
+    private boolean isKnownEvent(int rsEventId) {
+        if (knownEvents.contains(rsEventId)) {
+            return true;
+        }
+        if (!rsEventRepository.existsById(rsEventId)) {
+            return false;
+        }
+        knownEvents.add(rsEventId);
+        return true;
+    }
+
+    private AtomicInteger balanceOf(int userId) {
+        AtomicInteger balance = balances.get(userId);
+        if (balance != null) {
+            return balance;
+        }
+        Optional<UserDto> userDto = userRepository.findById(userId);
+        if (!userDto.isPresent()) {
+            throw new VoteRejectedException(VoteRejectedException.UNKNOWN_USER);
+        }
+        AtomicInteger loaded = new AtomicInteger(userDto.get().getVoteNum());
+        balance = balances.putIfAbsent(userId, loaded);
+        return balance == null ? loaded : balance;
+    }
+
+    /**
+     * Applies the votes and checkpoints the segment in one transaction. Votes for events that are
+     * gone are skipped and returned, so their balances can be refunded once the transaction has
+     * committed; votes of users that are gone are skipped and dropped with the user.
+     */
+    private List<PendingVote> persist(List<PendingVote> votes, long sealedSegment) {
+        Set<Integer> eventIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        for (PendingVote vote : votes) {
+            eventIds.add(vote.rsEventId);
+            userIds.add(vote.userId);
+        }
+        return transactionTemplate.execute(status -> {
+            Set<Integer> existingEvents = new HashSet<>(rsEventRepository.findExistingIds(eventIds));
+            Set<Integer> existingUsers = new HashSet<>(userRepository.findExistingIds(userIds));
+            Map<Integer, Integer> eventDeltas = new HashMap<>();
+            Map<Integer, Integer> userDeltas = new HashMap<>();
+            List<VoteDto> voteDtos = new ArrayList<>(votes.size());
+            List<PendingVote> rejected = new ArrayList<>();
+            int dropped = 0;
+            for (PendingVote vote : votes) {
+                if (!existingUsers.contains(vote.userId)) {
+                    dropped++;
+                    continue;
+                }
+                if (!existingEvents.contains(vote.rsEventId)) {
+                    rejected.add(vote);
+                    continue;
+                }
+                eventDeltas.merge(vote.rsEventId, vote.num, Integer::sum);
+                userDeltas.merge(vote.userId, vote.num, Integer::sum);
+                voteDtos.add(VoteDto.builder()
+                        .user(UserDto.builder().id(vote.userId).build())
+                        .rsEvent(RsEventDto.builder().id(vote.rsEventId).build())
+                        .num(vote.num)
+                        .localDateTime(vote.time)
+                        .build());
+            }
+            if (dropped > 0) {
+                LOGGER.warn("dropping {} votes of deleted users from segment {}", dropped, sealedSegment);
+            }
+            eventDeltas.forEach(rsEventRepository::increaseVoteNum);
+            userDeltas.forEach(userRepository::decreaseVoteNum);
+            voteRepository.saveAll(voteDtos);
+            checkpointRepository.save(new VoteJournalCheckpointDto(nodeId, sealedSegment));
+            return rejected;
+        });
+    }
+
+    private void refund(PendingVote vote) {
+        AtomicInteger balance = balances.get(vote.userId);
+        if (balance != null) {
+            balance.addAndGet(vote.num);
+        }
+    }
+
+    private void openSegment(long number) throws IOException {
+        segment = number;
+        journal = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void deleteSegmentsUpTo(long number) {
+        try {
+            for (Map.Entry<Long, Path> entry : listSegments().headMap(number, true).entrySet()) {
+                Files.deleteIfExists(entry.getValue());
+            }
+        } catch (IOException e) {
+            LOGGER.warn("could not delete flushed journal segments", e);
+        }
+    }
+
+    private TreeMap<Long, Path> listSegments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(journalDir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length())), path);
+            }
+        }
+        return segments;
+    }
+
+    private Path segmentPath(long number) {
+        return journalDir.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private List<PendingVote> readSegment(Path path) throws IOException {
+        List<PendingVote> votes = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            try {
+                String[] parts = line.split(",");
+                votes.add(new PendingVote(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                        Integer.parseInt(parts[2]), "-".equals(parts[3]) ? null : LocalDateTime.parse(parts[3])));
+            } catch (RuntimeException e) {
+                LOGGER.warn("skipping torn journal record in {}: {}", path, line);
+            }
+        }
+        return votes;
+    }
+
+    private static class PendingVote {
+        final int userId;
+        final int rsEventId;
+        final int num;
+        final LocalDateTime time;
+
+        PendingVote(int userId, int rsEventId, int num, LocalDateTime time) {
+            this.userId = userId;
+            this.rsEventId = rsEventId;
+            this.num = num;
+            this.time = time;
+        }
+
+        String toJournalLine() {
+            return userId + "," + rsEventId + "," + num + "," + (time == null ? "-" : time.toString()) + "\n";
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.thoughtworks.rslist.util;
+
+import java.util.Arrays;
+
+/**
+ * Map from {@code int} to {@code int} in two parallel arrays with open addressing and linear
+ * probing, so neither keys nor values are boxed and there is no node per entry. Absent keys read
+ * as the {@code missingValue} given at construction. Key 0 marks free slots and is kept on the side.
+ * Not thread-safe.
+ */
+public class IntIntMap {
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final int missingValue;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public IntIntMap(int missingValue) {
+        this(16, missingValue);
+    }
+
+    public IntIntMap(int expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        allocate(IntObjectMap.capacityFor(expectedSize, LOAD_FACTOR));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    public boolean containsKey(int key) {
+        return key == 0 ? hasZeroKey : keys[slot(key)] == key;
+    }
+
+    /** The value for {@code key}, or the missing value if there is none. */
+    public int get(int key) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : missingValue;
+        }
+        int slot = slot(key);
+        return keys[slot] == key ? values[slot] : missingValue;
+    }
+
+    /** Maps {@code key} to {@code value} and returns the previous value, or the missing value. */
+    public int put(int key, int value) {
+        if (key == 0) {
+            int previous = hasZeroKey ? zeroValue : missingValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int slot = slot(key);
+        if (keys[slot] == key) {
+            int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length * 2);
+        }
+        return missingValue;
+    }
+
+    /** Removes {@code key} and returns its value, or the missing value if there was none. */
+    public int remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return missingValue;
+            }
+            hasZeroKey = false;
+            size--;
+            return zeroValue;
+        }
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            return missingValue;
+        }
+        int previous = values[slot];
+        size--;
+        shiftKeys(slot);
+        return previous;
+    }
+
+    /** The slot holding {@code key}, or the free slot where it would go. */
+    private int slot(int key) {
+        int slot = IntObjectMap.mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Frees {@code slot} by moving back the entries after it whose probe sequence passes through it,
+     * so lookups never stop early at the hole and no tombstones are needed.
+     */
+    private void shiftKeys(int slot) {
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (keys[next] != 0) {
+            int home = IntObjectMap.mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != 0) {
+                int slot = slot(key);
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+}
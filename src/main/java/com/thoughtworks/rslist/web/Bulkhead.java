@@ -0,0 +1,118 @@
+package com.thoughtworks.rslist.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One isolated compartment of request execution: at most {@code maxConcurrent} requests run at a
+ * time and at most {@code maxQueued} more wait, anything beyond that is turned away at admission.
+ *
+ * <p>Requests run on virtual threads when the JDK provides them, with a semaphore capping how many
+ * run at once, and otherwise on a fixed pool of {@code maxConcurrent} platform threads.
+ */
+class Bulkhead {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Bulkhead.class);
+
+    private final String name;
+    private final Semaphore admitted;
+    private final Semaphore running;
+    private final ExecutorService executor;
+    private final AsyncTaskExecutor taskExecutor;
+    private final boolean virtual;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Counter rejected;
+
+    Bulkhead(String name, int maxConcurrent, int maxQueued, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.admitted = new Semaphore(maxConcurrent + maxQueued);
+        ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+        this.virtual = virtualThreads != null;
+        this.running = virtual ? new Semaphore(maxConcurrent) : null;
+        this.executor = virtual ? virtualThreads : new ThreadPoolExecutor(maxConcurrent, maxConcurrent,
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory(name));
+        this.taskExecutor = new TaskExecutorAdapter(task -> executor.execute(() -> run(task)));
+        this.rejected = meterRegistry.counter("rs.bulkhead.rejected", "bulkhead", name);
+        meterRegistry.gauge("rs.bulkhead.active", Tags.of("bulkhead", name), active);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Reserves a place for one request, or returns {@code false} when the compartment is full. A
+     * reservation is given back when the task handed to {@link #executor()} for it finishes.
+     */
+    boolean tryAdmit() {
+        if (admitted.tryAcquire()) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    AsyncTaskExecutor executor() {
+        return taskExecutor;
+    }
+
+    private void run(Runnable task) {
+        try {
+            if (running != null) {
+                running.acquireUninterruptibly();
+            }
+            active.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                active.decrementAndGet();
+                if (running != null) {
+                    running.release();
+                }
+            }
+        } finally {
+            admitted.release();
+        }
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "bulkhead-" + name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("virtual threads are not available, using a platform thread pool", e);
+            return null;
+        }
+    }
+}
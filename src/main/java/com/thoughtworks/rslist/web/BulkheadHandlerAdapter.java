@@ -0,0 +1,54 @@
+package com.thoughtworks.rslist.web;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Runs controller methods in their request's {@link Bulkhead} without changing their signatures.
+ *
+ * <p>The arguments are still resolved on the Tomcat thread, so binding and validation errors are
+ * reported as usual, but the method itself is returned as a {@link WebAsyncTask} on the bulkhead's
+ * executor, which Spring MVC handles exactly as if the controller had returned it: the container
+ * thread is released, and once the method has run the request is dispatched again and its result
+ * or exception goes through the usual return value and exception handlers. A full bulkhead fails the request with
+ * {@link BulkheadFullException} before anything is started.
+ */
+public class BulkheadHandlerAdapter extends RequestMappingHandlerAdapter {
+    private final Bulkheads bulkheads;
+
+    public BulkheadHandlerAdapter(Bulkheads bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+        return new BulkheadInvocableHandlerMethod(handlerMethod);
+    }
+
+    private class BulkheadInvocableHandlerMethod extends ServletInvocableHandlerMethod {
+        BulkheadInvocableHandlerMethod(HandlerMethod handlerMethod) {
+            super(handlerMethod);
+        }
+
+        @Override
+        public Object invokeForRequest(NativeWebRequest webRequest, ModelAndViewContainer mavContainer,
+                                       Object... providedArgs) throws Exception {
+            HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+            Bulkhead bulkhead = request == null ? null : bulkheads.forRequest(request);
+            if (bulkhead == null) {
+                return super.invokeForRequest(webRequest, mavContainer, providedArgs);
+            }
+            Object[] args = getMethodArgumentValues(webRequest, mavContainer, providedArgs);
+            if (!bulkhead.tryAdmit()) {
+                throw new BulkheadFullException(bulkhead.getName());
+            }
+            return new WebAsyncTask<>(null, bulkhead.executor(), () -> doInvoke(args));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.thoughtworks.rslist.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * The bulkheads API requests run in with {@code rs.web.execution=async}: reads, votes, rank
+ * purchases and other writes each get their own bounded compartment, so a stalled purchase can only
+ * exhaust the {@code buy} bulkhead while {@code /rs/list} keeps being served. With the default,
+ * {@code sync}, there are none and every request runs on the Tomcat thread.
+ */
+@Component
+public class Bulkheads {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Bulkheads.class);
+
+    private final boolean async;
+    private final Bulkhead read;
+    private final Bulkhead vote;
+    private final Bulkhead buy;
+    private final Bulkhead write;
+
+    public Bulkheads(@Value("${rs.web.execution:sync}") String execution,
+                     @Value("${rs.web.bulkhead.read.max-concurrent:64}") int readConcurrent,
+                     @Value("${rs.web.bulkhead.read.max-queued:256}") int readQueued,
+                     @Value("${rs.web.bulkhead.vote.max-concurrent:32}") int voteConcurrent,
+                     @Value("${rs.web.bulkhead.vote.max-queued:256}") int voteQueued,
+                     @Value("${rs.web.bulkhead.buy.max-concurrent:8}") int buyConcurrent,
+                     @Value("${rs.web.bulkhead.buy.max-queued:32}") int buyQueued,
+                     @Value("${rs.web.bulkhead.write.max-concurrent:16}") int writeConcurrent,
+                     @Value("${rs.web.bulkhead.write.max-queued:64}") int writeQueued,
+                     MeterRegistry meterRegistry) {
+        this.async = "async".equalsIgnoreCase(execution);
+        this.read = async ? new Bulkhead("read", readConcurrent, readQueued, meterRegistry) : null;
+        this.vote = async ? new Bulkhead("vote", voteConcurrent, voteQueued, meterRegistry) : null;
+        this.buy = async ? new Bulkhead("buy", buyConcurrent, buyQueued, meterRegistry) : null;
+        this.write = async ? new Bulkhead("write", writeConcurrent, writeQueued, meterRegistry) : null;
+        if (async) {
+            LOGGER.info("serving requests from bulkheads on {} threads", read.isVirtual() ? "virtual" : "platform");
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (async) {
+            read.shutdown();
+            vote.shutdown();
+            buy.shutdown();
+            write.shutdown();
+        }
+    }
+
+    /**
+     * The bulkhead the request should run in, or {@code null} to run it on the container thread:
+     * always in sync mode, and for actuator, the NDJSON streams, the reactive endpoints and the list
+     * subscription, which already respond asynchronously.
+     */
+    Bulkhead forRequest(HttpServletRequest request) {
+        if (!async) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/actuator") || path.startsWith("/reactive")
+                || path.endsWith("/stream") || path.endsWith("/subscribe")) {
+            return null;
+        }
+        if (HttpMethod.GET.matches(request.getMethod())) {
+            return read;
+        }
+        if (path.startsWith("/rs/vote")) {
+            return vote;
+        }
+        if (path.startsWith("/rs/buy")) {
+            return buy;
+        }
+        return write;
+    }
+}
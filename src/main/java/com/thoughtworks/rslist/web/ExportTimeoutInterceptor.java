@@ -0,0 +1,33 @@
+package com.thoughtworks.rslist.web;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.Callable;
+
+/**
+ * Gives the NDJSON exports ({@code .../stream}) a timeout of their own, long enough to write a whole
+ * table, while subscriptions, bulkhead tasks and everything else asynchronous keep the container
+ * default. It runs before the async request is started, after the adapter has applied the default.
+ */
+public class ExportTimeoutInterceptor implements CallableProcessingInterceptor {
+    private final long timeoutMs;
+
+    public ExportTimeoutInterceptor(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+        if (servletRequest == null || !(request instanceof AsyncWebRequest)) {
+            return;
+        }
+        String path = servletRequest.getRequestURI().substring(servletRequest.getContextPath().length());
+        if (path.endsWith("/stream")) {
+            ((AsyncWebRequest) request).setTimeout(timeoutMs);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.thoughtworks.rslist.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+@Configuration
+public class WebConfig implements WebMvcRegistrations, WebMvcConfigurer {
+    private final Bulkheads bulkheads;
+    private final long exportTimeoutMs;
+
+    public WebConfig(Bulkheads bulkheads, @Value("${rs.export.timeout-ms:1800000}") long exportTimeoutMs) {
+        this.bulkheads = bulkheads;
+        this.exportTimeoutMs = exportTimeoutMs;
+    }
+
+    @Override
+    public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+        return new BulkheadHandlerAdapter(bulkheads);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new ExportTimeoutInterceptor(exportTimeoutMs));
+    }
+}
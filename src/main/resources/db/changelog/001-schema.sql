@@ -0,0 +1,76 @@
+--liquibase formatted sql
+
+-- The schema as hibernate generated it with ddl-auto: create, which dropped every table on
+-- startup, so there is no earlier data to carry over.
+
+--changeset rslist:001-schema
+create table hibernate_sequence (next_val bigint) engine=InnoDB;
+insert into hibernate_sequence values (1);
+create table vote_seq (next_val bigint) engine=InnoDB;
+insert into vote_seq values (1);
+create table rank_record_seq (next_val bigint) engine=InnoDB;
+insert into rank_record_seq values (1);
+
+create table user (
+    id integer not null,
+    age integer not null,
+    email varchar(255),
+    gender varchar(255),
+    phone varchar(255),
+    name varchar(255),
+    vote_num integer not null,
+    primary key (id)
+) engine=InnoDB default charset=utf8;
+
+create table rs_event (
+    id integer not null,
+    event_name varchar(255),
+    keyword varchar(255),
+    vote_num integer not null,
+    user_id integer,
+    primary key (id),
+    constraint fk_rs_event_user foreign key (user_id) references user (id)
+) engine=InnoDB default charset=utf8;
+
+create table vote (
+    id integer not null,
+    local_date_time datetime,
+    num integer not null,
+    rs_event_id integer,
+    user_id integer,
+    primary key (id),
+    constraint fk_vote_rs_event foreign key (rs_event_id) references rs_event (id),
+    constraint fk_vote_user foreign key (user_id) references user (id)
+) engine=InnoDB default charset=utf8;
+
+create table rank (
+    id integer not null,
+    price integer not null,
+    rank_pos integer not null,
+    rs_event_id integer not null,
+    version integer,
+    primary key (id)
+) engine=InnoDB default charset=utf8;
+
+create table rank_record (
+    id integer not null,
+    price integer,
+    rank_pos integer,
+    rs_event_id integer,
+    primary key (id)
+) engine=InnoDB default charset=utf8;
+
+create table vote_journal_checkpoint (
+    node_id varchar(255) not null,
+    flushed_segment bigint not null,
+    primary key (node_id)
+) engine=InnoDB default charset=utf8;
+--rollback drop table vote_journal_checkpoint;
+--rollback drop table rank_record;
+--rollback drop table rank;
+--rollback drop table vote;
+--rollback drop table rs_event;
+--rollback drop table user;
+--rollback drop table rank_record_seq;
+--rollback drop table vote_seq;
+--rollback drop table hibernate_sequence;
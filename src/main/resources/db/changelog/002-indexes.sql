@@ -0,0 +1,22 @@
+--liquibase formatted sql
+
+-- Indexes for the lookups the repositories make; prepare/explain-indexes.sql prints the plans
+-- before and after them.
+
+--changeset rslist:002-indexes
+-- one position per buyer: RankRepository.findRankDtoByRankPos and the auction rely on it
+alter table rank add constraint uk_rank_rank_pos unique (rank_pos);
+-- the "not in (select rs_event_id from rank)" filter of the unpinned list queries
+create index idx_rank_rs_event on rank (rs_event_id);
+create index idx_rank_record_rs_event on rank_record (rs_event_id);
+-- keyset pages of the unpinned list: vote_num <= ? and (vote_num < ? or id > ?)
+create index idx_rs_event_vote_num on rs_event (vote_num, id);
+-- /voteRecord by user and event, in id order
+create index idx_vote_user_event on vote (user_id, rs_event_id, id);
+create index idx_vote_event on vote (rs_event_id, id);
+--rollback drop index idx_vote_event on vote;
+--rollback drop index idx_vote_user_event on vote;
+--rollback drop index idx_rs_event_vote_num on rs_event;
+--rollback drop index idx_rank_record_rs_event on rank_record;
+--rollback drop index idx_rank_rs_event on rank;
+--rollback alter table rank drop index uk_rank_rank_pos;
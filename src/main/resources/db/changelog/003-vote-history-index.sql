@@ -0,0 +1,6 @@
+--liquibase formatted sql
+
+--changeset rslist:003-vote-history-index
+-- keyset pages of /voteRecord/page: local_date_time >= ? and (local_date_time > ? or id > ?)
+create index idx_vote_user_event_time on vote (user_id, rs_event_id, local_date_time, id);
+--rollback drop index idx_vote_user_event_time on vote;
@@ -0,0 +1,6 @@
+--liquibase formatted sql
+
+--changeset rslist:004-vote-time-index
+-- votes within the horizon of the hotness score, read when the ranking is loaded
+create index idx_vote_time on vote (local_date_time);
+--rollback drop index idx_vote_time on vote;
@@ -0,0 +1,12 @@
+--liquibase formatted sql
+
+--changeset rslist:005-user-event-seq
+-- users and events get pooled ids of their own, as votes and rank records do, so the batch imports
+-- are not held to one hibernate_sequence round trip per row. Each table holds the top of the next
+-- block of 100, which starts just above the ids already taken.
+create table user_seq (next_val bigint) engine=InnoDB;
+insert into user_seq select coalesce(max(id), 0) + 100 from user;
+create table rs_event_seq (next_val bigint) engine=InnoDB;
+insert into rs_event_seq select coalesce(max(id), 0) + 100 from rs_event;
+--rollback drop table rs_event_seq;
+--rollback drop table user_seq;
@@ -0,0 +1,104 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.service.RsEventRanking;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "rs.reactive.page-size=2")
+@AutoConfigureMockMvc
+class ReactiveControllerTest {
+  @Autowired MockMvc mockMvc;
+  @Autowired UserRepository userRepository;
+  @Autowired RsEventRepository rsEventRepository;
+  @Autowired VoteRepository voteRepository;
+  @Autowired RsEventRanking rsEventRanking;
+  UserDto userDto;
+  RsEventDto rsEventDto;
+
+  @BeforeEach
+  void setUp() {
+    userDto = userRepository.save(UserDto.builder().userName("idolice").age(19).email("a@b.com").gender("female")
+        .phone("18888888888").voteNum(10).build());
+    rsEventRepository.save(RsEventDto.builder().user(userDto).eventName("first").keyword("keyword").voteNum(1)
+        .build());
+    rsEventDto = rsEventRepository.save(RsEventDto.builder().user(userDto).eventName("second").keyword("keyword")
+        .voteNum(5).build());
+    rsEventRanking.reload();
+  }
+
+  @AfterEach
+  void tearDown() {
+    voteRepository.deleteAll();
+    rsEventRepository.deleteAll();
+    userRepository.deleteAll();
+    rsEventRanking.reload();
+  }
+
+  @Test
+  void shouldGetRankedListAsJsonArray() throws Exception {
+    MvcResult result = mockMvc.perform(get("/reactive/rs/list").accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[0].eventName", is("second")))
+        .andExpect(jsonPath("$[1].eventName", is("first")));
+  }
+
+  @Test
+  void shouldRejectInvalidIndex() throws Exception {
+    MvcResult result = mockMvc.perform(get("/reactive/rs/3"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("invalid index")));
+  }
+
+  @Test
+  void shouldStreamVoteRecordAcrossPages() throws Exception {
+    for (int i = 1; i <= 5; i++) {
+      voteRepository.save(VoteDto.builder().user(userDto).rsEvent(rsEventDto).localDateTime(LocalDateTime.now())
+          .num(i).build());
+    }
+
+    MvcResult result = mockMvc.perform(get("/reactive/voteRecord").param("userId", String.valueOf(userDto.getId()))
+        .accept(MediaType.APPLICATION_STREAM_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    String body = mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    String[] lines = body.trim().split("\n");
+    assertEquals(5, lines.length);
+    for (int i = 0; i < lines.length; i++) {
+      assertTrue(lines[i].contains("\"voteNum\":" + (i + 1)));
+    }
+  }
+}
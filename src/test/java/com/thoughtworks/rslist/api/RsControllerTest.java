@@ -2,9 +2,13 @@ package com.thoughtworks.rslist.api;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import com.thoughtworks.rslist.domain.Trade;
 import com.thoughtworks.rslist.dto.*;
 import com.thoughtworks.rslist.repository.*;
+import com.thoughtworks.rslist.service.RankingBroadcaster;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,8 +18,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import javax.persistence.EntityManagerFactory;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,13 +31,16 @@ import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -48,6 +59,10 @@ class RsControllerTest {
     RankRepository rankRepository;
     @Autowired
     RankRecordRepository rankRecordRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    RankingBroadcaster rankingBroadcaster;
     private UserDto userDto;
 
     @BeforeEach
@@ -204,6 +219,48 @@ class RsControllerTest {
         mockMvc.perform(get("/rs/2")).andExpect(jsonPath("$.keyword", is("无分类")));
     }
 
+    @Test
+    public void shouldStreamRsEventsAsNdjson() throws Exception {
+        UserDto save = userRepository.save(userDto);
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build());
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第二条事件").user(save).build());
+
+        MvcResult result = mockMvc.perform(get("/rs/list/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("第一条事件", JsonPath.read(lines[0], "$.eventName"));
+        assertEquals(save.getId(), (int) JsonPath.read(lines[1], "$.userId"));
+        assertEquals("第二条事件", JsonPath.read(lines[1], "$.eventName"));
+    }
+
+    @Test
+    public void shouldPushRankingChangesToSubscribers() throws Exception {
+        UserDto save = userRepository.save(userDto);
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第一条事件").voteNum(1).user(save)
+                .build());
+        RsEventDto second = rsEventRepository.save(
+                RsEventDto.builder().keyword("无分类").eventName("第二条事件").voteNum(0).user(save).build());
+
+        MvcResult result = mockMvc.perform(get("/rs/list/subscribe"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String jsonValue = String.format("{\"userId\":%d,\"time\":\"%s\",\"voteNum\":%d}",
+                save.getId(), LocalDateTime.now().toString(), 2);
+        mockMvc.perform(post("/rs/vote/{id}", second.getId()).content(jsonValue)
+                .contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+        rankingBroadcaster.publish();
+
+        String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(body.startsWith("event:snapshot\ndata:[{\"type\":\"added\""));
+        assertTrue(body.contains("event:changes\ndata:[{\"type\":\"moved\",\"rsEventId\":" + second.getId()
+                + ",\"from\":2,\"to\":1,\"voteNum\":2}"));
+    }
+
     @Test
     public void shouldGetErrorWhenIndexInvalid() throws Exception {
         mockMvc
@@ -276,6 +333,30 @@ class RsControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    public void shouldExposeHotPathMetricsForPrometheus() throws Exception {
+        UserDto save = userRepository.save(userDto);
+        RsEventDto rsEventDto = rsEventRepository.save(
+                RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build());
+        String jsonValue = String.format("{\"userId\":%d,\"time\":\"%s\",\"voteNum\":%d}",
+                save.getId(), LocalDateTime.now().toString(), 1);
+        mockMvc.perform(post("/rs/vote/{id}", rsEventDto.getId()).content(jsonValue)
+                .contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+        mockMvc.perform(get("/rs/list")).andExpect(status().isOk());
+        mockMvc.perform(post("/rs/buy/{id}", rsEventDto.getId()).content("{\"amount\":5,\"rank\":1}")
+                .contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+        String body = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(body.contains("rs_vote_seconds_count{mode=\"direct\",outcome=\"accepted\",} 1.0"));
+        assertTrue(body.contains("rs_bid_seconds_count{outcome=\"won\",} 1.0"));
+        assertTrue(body.contains("rs_list_build_seconds_count"));
+        assertTrue(body.contains("rs_list_scanned_count"));
+        assertTrue(body.contains("rs_db_statements_count{uri=\"/rs/vote/{id}\",}"));
+        assertTrue(body.contains("http_server_requests_seconds_bucket"));
+    }
+
     @Test
     public void shouldVoteSuccess() throws Exception {
         UserDto save = userRepository.save(userDto);
@@ -302,4 +383,183 @@ class RsControllerTest {
         assertEquals(voteDtos.size(), 1);
         assertEquals(voteDtos.get(0).getNum(), 1);
     }
+
+    @Test
+    public void shouldAddRsEventsInBatchResolvingUsersOnce() throws Exception {
+        UserDto save = userRepository.save(userDto);
+        String jsonValue = String.format("["
+                        + "{\"eventName\":\"第一条事件\",\"keyword\":\"无分类\",\"userId\":%1$d},"
+                        + "{\"eventName\":\"第二条事件\",\"keyword\":\"无分类\",\"userId\":%2$d},"
+                        + "{\"eventName\":\"第三条事件\",\"userId\":%1$d},"
+                        + "{\"eventName\":\"第四条事件\",\"keyword\":\"无分类\",\"userId\":%1$d}]",
+                save.getId(), save.getId() + 100);
+        mockMvc.perform(post("/rs/events/batch").content(jsonValue).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.rejected", is(2)))
+                .andExpect(jsonPath("$.rejections[0].index", is(2)))
+                .andExpect(jsonPath("$.rejections[0].reason", startsWith("keyword ")))
+                .andExpect(jsonPath("$.rejections[1].index", is(1)))
+                .andExpect(jsonPath("$.rejections[1].reason", is("userId unknown user")));
+
+        assertEquals(2, rsEventRepository.findAll().size());
+        mockMvc.perform(get("/rs/list"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].eventName", is("第四条事件")));
+    }
+
+    @Test
+    public void shouldVoteInBatchWithPerItemResults() throws Exception {
+        UserDto save = userRepository.save(userDto);
+        RsEventDto first = rsEventRepository.save(
+                RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build());
+        RsEventDto second = rsEventRepository.save(
+                RsEventDto.builder().keyword("无分类").eventName("第二条事件").user(save).build());
+
+        String jsonValue = String.format("["
+                        + "{\"userId\":%1$d,\"rsEventId\":%2$d,\"voteNum\":3},"
+                        + "{\"userId\":%1$d,\"rsEventId\":%3$d,\"voteNum\":5},"
+                        + "{\"userId\":%1$d,\"rsEventId\":%2$d,\"voteNum\":3},"
+                        + "{\"userId\":%1$d,\"rsEventId\":%4$d,\"voteNum\":1},"
+                        + "{\"userId\":%5$d,\"rsEventId\":%2$d,\"voteNum\":1},"
+                        + "{\"userId\":%1$d,\"rsEventId\":%2$d,\"voteNum\":0},"
+                        + "{\"userId\":%1$d,\"rsEventId\":%3$d,\"voteNum\":2}]",
+                save.getId(), first.getId(), second.getId(), second.getId() + 100, save.getId() + 100);
+        mockMvc.perform(post("/rs/vote/batch").content(jsonValue).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(7)))
+                .andExpect(jsonPath("$[0].accepted", is(true)))
+                .andExpect(jsonPath("$[1].accepted", is(true)))
+                .andExpect(jsonPath("$[2].reason", is("insufficient_votes")))
+                .andExpect(jsonPath("$[3].reason", is("unknown_event")))
+                .andExpect(jsonPath("$[4].reason", is("unknown_user")))
+                .andExpect(jsonPath("$[5].reason", is("invalid_num")))
+                .andExpect(jsonPath("$[6].accepted", is(true)))
+                .andExpect(jsonPath("$[6].index", is(6)));
+
+        assertEquals(0, userRepository.findById(save.getId()).get().getVoteNum());
+        assertEquals(3, rsEventRepository.findById(first.getId()).get().getVoteNum());
+        assertEquals(7, rsEventRepository.findById(second.getId()).get().getVoteNum());
+        assertEquals(3, voteRepository.findAll().size());
+        mockMvc.perform(get("/rs/1"))
+                .andExpect(jsonPath("$.eventName", is("第二条事件")))
+                .andExpect(jsonPath("$.voteNum", is(7)));
+    }
+
+    @Test
+    public void should_keep_rs_event_list_in_sync_after_vote_and_buy() throws Exception {
+        UserDto save = userRepository.save(userDto);
+        RsEventDto rsEventDto1 = rsEventRepository.save(
+                RsEventDto.builder().keyword("无分类").eventName("第一条事件").voteNum(3).user(save).build());
+        RsEventDto rsEventDto2 = rsEventRepository.save(
+                RsEventDto.builder().keyword("无分类").eventName("第二条事件").voteNum(2).user(save).build());
+        RsEventDto rsEventDto3 = rsEventRepository.save(
+                RsEventDto.builder().keyword("无分类").eventName("第三条事件").voteNum(1).user(save).build());
+        mockMvc.perform(get("/rs/list"))
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].eventName", is("第一条事件")));
+
+        String jsonValue = String.format("{\"userId\":%d,\"time\":\"%s\",\"voteNum\":5}",
+                save.getId(), LocalDateTime.now().toString());
+        mockMvc.perform(post("/rs/vote/{id}", rsEventDto3.getId())
+                .content(jsonValue).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rs/buy/{id}", rsEventDto2.getId())
+                .content(new ObjectMapper().writeValueAsString(new Trade(5, 3)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/rs/list"))
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].eventName", is("第三条事件")))
+                .andExpect(jsonPath("$[0].voteNum", is(6)))
+                .andExpect(jsonPath("$[1].eventName", is("第一条事件")))
+                .andExpect(jsonPath("$[2].eventName", is("第二条事件")))
+                .andExpect(status().isOk());
+
+        String newEvent = "{\"eventName\":\"新事件\",\"keyword\":\"经济\",\"userId\": " + save.getId() + "}";
+        mockMvc.perform(post("/rs/event").content(newEvent).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/rs/list?start=3&end=4"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].eventName", is("第二条事件")))
+                .andExpect(jsonPath("$[1].eventName", is("新事件")));
+    }
+
+    @Test
+    public void shouldGetErrorWhenListRangeInvalid() throws Exception {
+        mockMvc.perform(get("/rs/list?start=1&end=2"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("invalid index")));
+    }
+
+    @Test
+    public void should_page_rs_event_list_with_offset_and_cursor() throws Exception {
+        UserDto save = userRepository.save(userDto);
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第二条事件").voteNum(10).user(save).build());
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第三条事件").voteNum(4).user(save).build());
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第四条事件").voteNum(2).user(save).build());
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第五条事件").voteNum(0).user(save).build());
+        rankRepository.save(RankDto.builder().rankPos(1).rsEventId(4).price(5).build());
+        rankRepository.save(RankDto.builder().rankPos(3).rsEventId(5).price(5).build());
+
+        MvcResult firstPage = mockMvc.perform(get("/rs/list/page?size=3"))
+                .andExpect(jsonPath("$.rsEvents", hasSize(3)))
+                .andExpect(jsonPath("$.rsEvents[0].eventName", is("第四条事件")))
+                .andExpect(jsonPath("$.rsEvents[1].eventName", is("第二条事件")))
+                .andExpect(jsonPath("$.rsEvents[2].eventName", is("第五条事件")))
+                .andExpect(status().isOk())
+                .andReturn();
+        String cursor = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextCursor");
+        mockMvc.perform(get("/rs/list/page").param("size", "3").param("cursor", cursor))
+                .andExpect(jsonPath("$.rsEvents", hasSize(1)))
+                .andExpect(jsonPath("$.rsEvents[0].eventName", is("第三条事件")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        mockMvc.perform(get("/rs/list/page?start=2&size=2"))
+                .andExpect(jsonPath("$.rsEvents", hasSize(2)))
+                .andExpect(jsonPath("$.rsEvents[0].eventName", is("第二条事件")))
+                .andExpect(jsonPath("$.rsEvents[1].eventName", is("第五条事件")));
+
+        rankRepository.save(RankDto.builder().rankPos(10).rsEventId(3).price(5).build());
+        mockMvc.perform(get("/rs/list/page?start=4&size=2"))
+                .andExpect(jsonPath("$.rsEvents", hasSize(1)))
+                .andExpect(jsonPath("$.rsEvents[0].eventName", is("第三条事件")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        mockMvc.perform(get("/rs/list/page").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("invalid cursor")));
+    }
+
+    @Test
+    public void should_build_rs_event_list_with_constant_statement_count() throws Exception {
+        List<UserDto> users = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            users.add(UserDto.builder().userName("user" + i).phone("18888888888").age(19).voteNum(10).build());
+        }
+        userRepository.saveAll(users);
+        List<RsEventDto> rsEvents = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            rsEvents.add(RsEventDto.builder().keyword("无分类").eventName("事件" + i).voteNum(i % 50)
+                    .user(users.get(i % users.size())).build());
+        }
+        rsEventRepository.saveAll(rsEvents);
+        for (int i = 0; i < 10; i++) {
+            rankRepository.save(RankDto.builder().rankPos(i * 3 + 1).rsEventId(rsEvents.get(i).getId()).price(5).build());
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        mockMvc.perform(get("/rs/list?start=1&end=10"))
+                .andExpect(jsonPath("$", hasSize(10)))
+                .andExpect(jsonPath("$[0].eventName", is("事件0")))
+                .andExpect(status().isOk());
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        mockMvc.perform(get("/rs/list/page?start=5000&size=20"))
+                .andExpect(jsonPath("$.rsEvents", hasSize(20)))
+                .andExpect(status().isOk());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
 }
@@ -2,10 +2,14 @@ package com.thoughtworks.rslist.api;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.thoughtworks.rslist.domain.User;
+import com.thoughtworks.rslist.dto.RankDto;
 import com.thoughtworks.rslist.dto.RsEventDto;
 import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.repository.RankRepository;
 import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,24 +18,33 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = {"rs.import.chunk-size=2", "rs.user-delete.chunk-size=2"})
 @AutoConfigureMockMvc
 class UserControllerTest {
   @Autowired MockMvc mockMvc;
   ObjectMapper objectMapper;
   @Autowired UserRepository userRepository;
   @Autowired RsEventRepository rsEventRepository;
+  @Autowired VoteRepository voteRepository;
+  @Autowired RankRepository rankRepository;
 
   @BeforeEach
   void setUp() {
     objectMapper = new ObjectMapper();
+    voteRepository.deleteAll();
+    rankRepository.deleteAll();
     rsEventRepository.deleteAll();
     userRepository.deleteAll();
   }
@@ -49,6 +62,35 @@ class UserControllerTest {
     assertEquals(all.get(0).getEmail(), "a@b.com");
   }
 
+  @Test
+  public void shouldRegisterUsersInBatchAndReportInvalidOnes() throws Exception {
+    String request = objectMapper.writeValueAsString(Arrays.asList(
+        new User("user1", "female", 19, "a@b.com", "18888888888"),
+        new User("user2", "male", 17, "a@b.com", "18888888888"),
+        new User("user3", "female", 20, "a@b.com", "18888888888"),
+        new User("user4", "male", 21, "ab.com", "188"),
+        new User("user5", "female", 22, "a@b.com", "18888888888")));
+    mockMvc
+        .perform(post("/users/batch").contentType(MediaType.APPLICATION_JSON).content(request))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.imported", is(3)))
+        .andExpect(jsonPath("$.rejected", is(2)))
+        .andExpect(jsonPath("$.rejections[0].index", is(1)))
+        .andExpect(jsonPath("$.rejections[0].reason", startsWith("age ")))
+        .andExpect(jsonPath("$.rejections[1].index", is(3)));
+    List<UserDto> all = userRepository.findAll();
+    assertEquals(3, all.size());
+    assertEquals(10, all.get(0).getVoteNum());
+  }
+
+  @Test
+  public void shouldRejectMalformedUserBatch() throws Exception {
+    mockMvc
+        .perform(post("/users/batch").contentType(MediaType.APPLICATION_JSON).content("{\"userName\":\"a\"}"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("expected a json array")));
+  }
+
   @Test
   public void shouldNotRegisterWhenNameIsInvalid() throws Exception {
     User user = new User("idolice88", "female", 19, "a@b.com", "18888888888");
@@ -124,4 +166,35 @@ class UserControllerTest {
     assertEquals(userRepository.findAll().size(), 0);
     assertEquals(rsEventRepository.findAll().size(), 0);
   }
+
+  @Test
+  public void shouldDeleteUserWithVotesAndRanksInChunks() throws Exception {
+    UserDto owner = userRepository.save(UserDto.builder().voteNum(10).phone("18888888888").gender("female")
+        .email("a@b.com").age(19).userName("owner").build());
+    UserDto voter = userRepository.save(UserDto.builder().voteNum(10).phone("18888888888").gender("male")
+        .email("a@b.com").age(19).userName("voter").build());
+    RsEventDto ownEvent = rsEventRepository.save(
+        RsEventDto.builder().keyword("keyword").eventName("own event").user(owner).build());
+    RsEventDto otherEvent = rsEventRepository.save(
+        RsEventDto.builder().keyword("keyword").eventName("other event").user(voter).build());
+    rankRepository.save(RankDto.builder().rankPos(1).price(10).rsEventId(ownEvent.getId()).build());
+    for (int i = 0; i < 5; i++) {
+      voteRepository.save(VoteDto.builder().user(voter).rsEvent(ownEvent).localDateTime(LocalDateTime.now())
+          .num(1).build());
+      voteRepository.save(VoteDto.builder().user(owner).rsEvent(otherEvent).localDateTime(LocalDateTime.now())
+          .num(1).build());
+    }
+    voteRepository.save(VoteDto.builder().user(voter).rsEvent(otherEvent).localDateTime(LocalDateTime.now())
+        .num(1).build());
+
+    mockMvc.perform(delete("/user/{id}", owner.getId())).andExpect(status().isOk());
+
+    assertEquals(1, userRepository.findAll().size());
+    assertEquals(1, rsEventRepository.findAll().size());
+    assertEquals(0, rankRepository.findAll().size());
+    List<VoteDto> votes = voteRepository.findAll();
+    assertEquals(1, votes.size());
+    assertEquals(voter.getId(), votes.get(0).getUser().getId());
+    assertEquals(otherEvent.getId(), votes.get(0).getRsEvent().getId());
+  }
 }
@@ -1,5 +1,6 @@
 package com.thoughtworks.rslist.api;
 
+import com.jayway.jsonpath.JsonPath;
 import com.thoughtworks.rslist.dto.RsEventDto;
 import com.thoughtworks.rslist.dto.UserDto;
 import com.thoughtworks.rslist.dto.VoteDto;
@@ -13,13 +14,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -107,4 +115,63 @@ class VoteControllerTest {
 
 
     }
+
+    @Test
+    public void shouldPageVoteRecordByCursor() throws Exception {
+      voteRepository.deleteAll();
+      LocalDateTime time = LocalDateTime.of(2020, 9, 1, 12, 0);
+      for (int i = 1; i <= 5; i++) {
+        voteRepository.save(VoteDto.builder().user(userDto).rsEvent(rsEventDto).localDateTime(time.plusMinutes(6 - i))
+                .num(i).build());
+      }
+
+      String body = mockMvc.perform(get("/voteRecord/page").param("userId", String.valueOf(userDto.getId()))
+              .param("rsEventId", String.valueOf(rsEventDto.getId())).param("size", "3"))
+              .andExpect(status().isOk())
+              .andExpect(jsonPath("$.votes", hasSize(3)))
+              .andExpect(jsonPath("$.votes[0].voteNum", is(5)))
+              .andExpect(jsonPath("$.votes[2].voteNum", is(3)))
+              .andReturn().getResponse().getContentAsString();
+      String cursor = JsonPath.read(body, "$.nextCursor");
+
+      mockMvc.perform(get("/voteRecord/page").param("userId", String.valueOf(userDto.getId()))
+              .param("rsEventId", String.valueOf(rsEventDto.getId())).param("size", "3").param("cursor", cursor))
+              .andExpect(status().isOk())
+              .andExpect(jsonPath("$.votes", hasSize(2)))
+              .andExpect(jsonPath("$.votes[0].voteNum", is(2)))
+              .andExpect(jsonPath("$.votes[1].voteNum", is(1)))
+              .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    public void shouldRejectVoteRecordPageOverMaxSizeOrWithBadCursor() throws Exception {
+      mockMvc.perform(get("/voteRecord/page").param("userId", String.valueOf(userDto.getId()))
+              .param("rsEventId", String.valueOf(rsEventDto.getId())).param("size", "101"))
+              .andExpect(status().isBadRequest())
+              .andExpect(jsonPath("$.error", is("invalid page size")));
+      mockMvc.perform(get("/voteRecord/page").param("userId", String.valueOf(userDto.getId()))
+              .param("rsEventId", String.valueOf(rsEventDto.getId())).param("cursor", "garbage"))
+              .andExpect(status().isBadRequest())
+              .andExpect(jsonPath("$.error", is("invalid cursor")));
+    }
+
+    @Test
+    public void shouldStreamVoteRecordAsNdjson() throws Exception {
+      for (int i = 1; i <= 3; i++) {
+        voteRepository.save(VoteDto.builder().user(userDto).rsEvent(rsEventDto).localDateTime(LocalDateTime.now())
+                .num(i).build());
+      }
+
+      MvcResult result = mockMvc.perform(get("/voteRecord/stream").param("userId", String.valueOf(userDto.getId())))
+              .andExpect(request().asyncStarted())
+              .andReturn();
+      String body = mockMvc.perform(asyncDispatch(result))
+              .andExpect(content().contentType("application/x-ndjson"))
+              .andExpect(content().string(containsString("\"rsEventId\":" + rsEventDto.getId())))
+              .andReturn().getResponse().getContentAsString();
+      String[] lines = body.split("\n");
+      assertEquals(4, lines.length);
+      assertEquals(true, lines[0].contains("\"voteNum\":5"));
+      assertEquals(true, lines[3].contains("\"voteNum\":3"));
+    }
 }
@@ -0,0 +1,138 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.domain.VoteResult;
+import com.thoughtworks.rslist.dto.UserSummaryDto;
+import com.thoughtworks.rslist.event.RsEventVotedEvent;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.exception.VoteRejectedException;
+import com.thoughtworks.rslist.repository.RankRecordRepository;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class BatchVoteServiceTest {
+  @Mock RsEventRepository rsEventRepository;
+  @Mock UserRepository userRepository;
+  @Mock VoteRepository voteRepository;
+  @Mock RankRecordRepository rankRecordRepository;
+  @Mock ApplicationEventPublisher eventPublisher;
+  @Mock VoteWriteBehindBuffer voteWriteBehindBuffer;
+  @Mock PlatformTransactionManager transactionManager;
+  BatchVoteService batchVoteService;
+  LocalDateTime now = LocalDateTime.now();
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    HistoryWriter historyWriter = new HistoryWriter(voteRepository, rankRecordRepository, transactionManager, "sync",
+            16, 10, 50, 20);
+    batchVoteService = new BatchVoteService(rsEventRepository, userRepository, historyWriter, eventPublisher,
+            voteWriteBehindBuffer, new SimpleMeterRegistry(), 3);
+  }
+
+  @Test
+  void shouldDebitEachUserAndCreditEachEventOnce() {
+    when(rsEventRepository.findExistingIds(anyCollection())).thenReturn(Arrays.asList(1, 2));
+    when(userRepository.findSummariesByIds(anyCollection()))
+        .thenReturn(Arrays.asList(new UserSummaryDto(1, "a", 10), new UserSummaryDto(2, "b", 10)));
+
+    List<VoteResult> results = batchVoteService.vote(Arrays.asList(vote(2, 1, 4), vote(1, 2, 3), vote(1, 1, 2)));
+
+    assertTrue(results.stream().allMatch(VoteResult::isAccepted));
+    verify(userRepository).decreaseVoteNumsIfEnough(sortedMap(1, 5, 2, 4));
+    verify(rsEventRepository).increaseVoteNums(sortedMap(1, 6, 2, 3));
+    verify(userRepository, never()).increaseVoteNums(any());
+    verify(voteRepository, times(1)).saveAll(anyList());
+    verify(eventPublisher, times(3)).publishEvent(any(RsEventVotedEvent.class));
+  }
+
+  @Test
+  void shouldRejectAllVotesOfUserWhoseBalanceWasDrainedConcurrently() {
+    when(rsEventRepository.findExistingIds(anyCollection())).thenReturn(Collections.singletonList(1));
+    when(userRepository.findSummariesByIds(anyCollection()))
+        .thenReturn(Arrays.asList(new UserSummaryDto(1, "a", 10), new UserSummaryDto(2, "b", 10)));
+    when(userRepository.decreaseVoteNumsIfEnough(any())).thenReturn(Collections.singleton(1));
+
+    List<VoteResult> results = batchVoteService.vote(Arrays.asList(vote(1, 1, 2), vote(2, 1, 1), vote(1, 1, 2)));
+
+    assertEquals(VoteResult.rejected(0, VoteRejectedException.INSUFFICIENT_VOTES), results.get(0));
+    assertEquals(VoteResult.accepted(1), results.get(1));
+    assertEquals(VoteResult.rejected(2, VoteRejectedException.INSUFFICIENT_VOTES), results.get(2));
+    verify(rsEventRepository).increaseVoteNums(sortedMap(1, 1));
+    verify(eventPublisher, times(1)).publishEvent(any(RsEventVotedEvent.class));
+  }
+
+  @Test
+  void shouldHandVotesToBufferInWriteBehindMode() {
+    batchVoteService.setVoteMode("write-behind");
+    Vote rejected = vote(2, 1, 1);
+    doThrow(new VoteRejectedException(VoteRejectedException.UNKNOWN_USER))
+        .when(voteWriteBehindBuffer).vote(rejected, 1);
+
+    List<VoteResult> results = batchVoteService.vote(Arrays.asList(vote(1, 1, 1), rejected));
+
+    assertEquals(VoteResult.accepted(0), results.get(0));
+    assertEquals(VoteResult.rejected(1, VoteRejectedException.UNKNOWN_USER), results.get(1));
+    verify(userRepository, never()).decreaseVoteNumsIfEnough(any());
+  }
+
+  @Test
+  void shouldRejectBatchLargerThanLimit() {
+    assertThrows(RequestNotValidException.class, () -> batchVoteService.vote(
+        Arrays.asList(vote(1, 1, 1), vote(1, 1, 1), vote(1, 1, 1), vote(1, 1, 1))));
+  }
+
+  @Test
+  void shouldRefundAndRejectVotesForEventDeletedAfterLookup() {
+    when(rsEventRepository.findExistingIds(anyCollection())).thenReturn(Arrays.asList(1, 2));
+    when(userRepository.findSummariesByIds(anyCollection()))
+        .thenReturn(Collections.singletonList(new UserSummaryDto(1, "a", 10)));
+    when(rsEventRepository.increaseVoteNums(any())).thenReturn(Collections.singleton(2));
+
+    List<VoteResult> results = batchVoteService.vote(Arrays.asList(vote(1, 1, 2), vote(1, 2, 3)));
+
+    assertEquals(VoteResult.accepted(0), results.get(0));
+    assertEquals(VoteResult.rejected(1, VoteRejectedException.UNKNOWN_EVENT), results.get(1));
+    verify(userRepository).increaseVoteNums(sortedMap(1, 3));
+    verify(eventPublisher, times(1)).publishEvent(any(RsEventVotedEvent.class));
+  }
+
+  private SortedMap<Integer, Integer> sortedMap(int... idsAndNums) {
+    SortedMap<Integer, Integer> map = new TreeMap<>();
+    for (int i = 0; i < idsAndNums.length; i += 2) {
+      map.put(idsAndNums[i], idsAndNums[i + 1]);
+    }
+    return map;
+  }
+
+  private Vote vote(int userId, int rsEventId, int num) {
+    return Vote.builder().userId(userId).rsEventId(rsEventId).voteNum(num).time(now).build();
+  }
+}
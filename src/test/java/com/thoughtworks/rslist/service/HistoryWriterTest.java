@@ -0,0 +1,89 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.RankRecordDto;
+import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.repository.RankRecordRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class HistoryWriterTest {
+  @Mock VoteRepository voteRepository;
+  @Mock RankRecordRepository rankRecordRepository;
+  @Mock PlatformTransactionManager transactionManager;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+  }
+
+  @Test
+  void shouldSaveInCallerWhenSync() {
+    HistoryWriter historyWriter = newWriter("sync", 16, 10);
+    historyWriter.append(new VoteDto());
+    historyWriter.append(new RankRecordDto());
+    verify(voteRepository).save(any());
+    verify(rankRecordRepository).save(any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldBatchAndDrainOnShutdownWhenAsync() throws Exception {
+    HistoryWriter historyWriter = newWriter("async", 16, 10);
+    historyWriter.start();
+    for (int i = 0; i < 5; i++) {
+      historyWriter.append(new VoteDto());
+    }
+    historyWriter.append(new RankRecordDto());
+    historyWriter.stop();
+
+    verify(voteRepository, never()).save(any());
+    ArgumentCaptor<Iterable<VoteDto>> votes = ArgumentCaptor.forClass(Iterable.class);
+    verify(voteRepository, atLeastOnce()).saveAll(votes.capture());
+    assertEquals(5, votes.getAllValues().stream().mapToLong(batch -> batch.spliterator().getExactSizeIfKnown()).sum());
+    verify(rankRecordRepository).saveAll(any());
+    assertEquals(0, historyWriter.pending());
+  }
+
+  @Test
+  void shouldWriteInCallerWhenQueueStaysFull() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    when(voteRepository.saveAll(any())).then(invocation -> {
+      if (Thread.currentThread().getName().equals("history-writer")) {
+        release.await();
+      }
+      return null;
+    });
+    HistoryWriter historyWriter = newWriter("async", 1, 1);
+    historyWriter.start();
+    historyWriter.append(new VoteDto());
+    verify(voteRepository, timeout(1000)).saveAll(any());
+    historyWriter.append(new VoteDto());
+    historyWriter.append(new VoteDto());
+
+    verify(voteRepository, times(2)).saveAll(any());
+    release.countDown();
+    historyWriter.stop();
+    verify(voteRepository, times(3)).saveAll(any());
+  }
+
+  private HistoryWriter newWriter(String mode, int capacity, int batchSize) {
+    return new HistoryWriter(voteRepository, rankRecordRepository, transactionManager, mode, capacity, batchSize,
+        20, 20);
+  }
+}
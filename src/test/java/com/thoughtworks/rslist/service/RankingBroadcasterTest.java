@@ -0,0 +1,174 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RankingChange;
+import com.thoughtworks.rslist.dto.RsEventSummaryDto;
+import com.thoughtworks.rslist.event.RankBoughtEvent;
+import com.thoughtworks.rslist.event.RsEventAddedEvent;
+import com.thoughtworks.rslist.event.RsEventVotedEvent;
+import com.thoughtworks.rslist.repository.RankRepository;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class RankingBroadcasterTest {
+  @Mock RsEventRepository rsEventRepository;
+  @Mock RankRepository rankRepository;
+  RsEventRanking rsEventRanking;
+  RankingBroadcaster rankingBroadcaster;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    when(rsEventRepository.findAllSummaries())
+        .thenReturn(Arrays.asList(summary(1, "a", 5), summary(2, "b", 3), summary(3, "c", 1)));
+    when(rankRepository.findAll()).thenReturn(Collections.emptyList());
+    rsEventRanking = new RsEventRanking(rsEventRepository, rankRepository, new SimpleMeterRegistry());
+    rankingBroadcaster = new RankingBroadcaster(rsEventRanking, 1000, 16, 8, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void shouldTrackNothingWithoutSubscribers() {
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(3, 1, 10, LocalDateTime.now()));
+    assertTrue(rankingBroadcaster.changes().isEmpty());
+  }
+
+  @Test
+  void shouldCoalesceVotesIntoOneDiff() throws Exception {
+    rankingBroadcaster.subscribe();
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(3, 1, 2, LocalDateTime.now()));
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(3, 1, 2, LocalDateTime.now()));
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(1, 1, 1, LocalDateTime.now()));
+
+    List<RankingChange> changes = rankingBroadcaster.changes();
+
+    assertEquals(Arrays.asList(
+        RankingChange.voted(1, 1, 6),
+        RankingChange.moved(3, 3, 2, 5),
+        RankingChange.moved(2, 2, 3, null)), changes);
+    assertTrue(rankingBroadcaster.changes().isEmpty());
+  }
+
+  @Test
+  void shouldReportBoughtRanksAndAddedEvents() throws Exception {
+    rankingBroadcaster.subscribe();
+    rsEventRanking.onRsEventAdded(new RsEventAddedEvent(4, "d", "keyword", 0, 1));
+    RankBoughtEvent rankBoughtEvent = new RankBoughtEvent(1, 10, 3, null);
+    rankingBroadcaster.onRankBought(rankBoughtEvent);
+    rsEventRanking.onRankBought(rankBoughtEvent);
+
+    List<RankingChange> changes = rankingBroadcaster.changes();
+
+    assertEquals(RankingChange.bought(3, 1, null), changes.get(0));
+    assertEquals(RankingChange.moved(3, 3, 1, null), changes.get(1));
+    assertEquals(RankingChange.moved(1, 1, 2, null), changes.get(2));
+    assertEquals(RankingChange.moved(2, 2, 3, null), changes.get(3));
+    assertEquals(RankingChange.ADDED, changes.get(4).getType());
+    assertEquals(4, changes.get(4).getRsEventId());
+    assertEquals(4, changes.get(4).getTo());
+  }
+
+  @Test
+  void shouldSendSnapshotBeforeChanges() throws Exception {
+    RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0));
+    rankingBroadcaster.subscribe(emitter);
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(3, 1, 10, LocalDateTime.now()));
+    rankingBroadcaster.publish();
+
+    emitter.awaitSent(2);
+    assertEquals(Arrays.asList("snapshot", "changes"), emitter.names);
+  }
+
+  @Test
+  void shouldDropSubscriberThatFallsBehindWithoutStallingOthers() throws Exception {
+    RankingBroadcaster broadcaster = new RankingBroadcaster(rsEventRanking, 1000, 2, 2, new SimpleMeterRegistry());
+    CountDownLatch release = new CountDownLatch(1);
+    RecordingEmitter stalled = new RecordingEmitter(release);
+    RecordingEmitter healthy = new RecordingEmitter(new CountDownLatch(0));
+    broadcaster.subscribe(stalled);
+    broadcaster.subscribe(healthy);
+    stalled.awaitSent(1);
+
+    // dropping the stalled subscriber must not wait for its blocked write
+    assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+      for (int i = 0; i < 3; i++) {
+        rsEventRanking.onRsEventVoted(new RsEventVotedEvent(3, 1, 10, LocalDateTime.now()));
+        broadcaster.publish();
+      }
+      broadcaster.onRankBought(new RankBoughtEvent(1, 10, 3, null));
+    });
+
+    healthy.awaitSent(4);
+    assertEquals(1, broadcaster.subscriberCount());
+    assertFalse(stalled.completed);
+    release.countDown();
+    stalled.awaitCompleted();
+  }
+
+  private RsEventSummaryDto summary(int id, String eventName, int voteNum) {
+    return new RsEventSummaryDto(id, eventName, "keyword", voteNum, 1);
+  }
+
+  private static class RecordingEmitter extends SseEmitter {
+    final List<String> names = new CopyOnWriteArrayList<>();
+    final CountDownLatch release;
+    volatile boolean completed;
+
+    RecordingEmitter(CountDownLatch release) {
+      this.release = release;
+    }
+
+    // synchronized like ResponseBodyEmitter, so complete() waits for a blocked send
+    @Override
+    public synchronized void send(SseEventBuilder builder) throws IOException {
+      String text = builder.build().iterator().next().getData().toString();
+      names.add(text.substring("event:".length(), text.indexOf('\n')));
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public synchronized void complete() {
+      completed = true;
+      super.complete();
+    }
+
+    void awaitCompleted() throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 5000;
+      while (!completed && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertTrue(completed);
+    }
+
+    void awaitSent(int count) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 5000;
+      while (names.size() < count && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(count, names.size());
+    }
+  }
+}
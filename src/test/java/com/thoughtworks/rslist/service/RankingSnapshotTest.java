@@ -0,0 +1,65 @@
+package com.thoughtworks.rslist.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RankingSnapshotTest {
+  @TempDir Path dir;
+
+  @Test
+  void shouldReadBackWhatWasWritten() throws IOException {
+    RankingSnapshot snapshot = new RankingSnapshot(1234L, 99, 3);
+    fill(snapshot, 0, 7, "热搜", "关键字", 0);
+    fill(snapshot, 1, 3, "b", null, 0);
+    fill(snapshot, 2, 12, null, "", 2);
+    Path path = dir.resolve("nested").resolve("ranking.snapshot");
+    snapshot.write(path);
+
+    RankingSnapshot read = RankingSnapshot.read(path);
+    assertEquals(1234L, read.writtenAt);
+    assertEquals(99, read.voteWatermark);
+    assertEquals(12, read.maxEventId());
+    assertArrayEquals(snapshot.ids, read.ids);
+    assertArrayEquals(snapshot.userIds, read.userIds);
+    assertArrayEquals(snapshot.voteNums, read.voteNums);
+    assertArrayEquals(snapshot.pinnedRanks, read.pinnedRanks);
+    assertArrayEquals(snapshot.eventNames, read.eventNames);
+    assertArrayEquals(snapshot.keywords, read.keywords);
+  }
+
+  @Test
+  void shouldReturnNullWhenThereIsNoSnapshot() throws IOException {
+    assertNull(RankingSnapshot.read(dir.resolve("missing.snapshot")));
+  }
+
+  @Test
+  void shouldRejectCorruptSnapshot() throws IOException {
+    RankingSnapshot snapshot = new RankingSnapshot(1L, 1, 1);
+    fill(snapshot, 0, 1, "a", "b", 0);
+    Path path = dir.resolve("ranking.snapshot");
+    snapshot.write(path);
+    byte[] bytes = Files.readAllBytes(path);
+    bytes[bytes.length - 1] ^= 1;
+    Files.write(path, bytes);
+
+    assertThrows(IOException.class, () -> RankingSnapshot.read(path));
+  }
+
+  private void fill(RankingSnapshot snapshot, int i, int id, String eventName, String keyword, int pinnedRank) {
+    snapshot.ids[i] = id;
+    snapshot.userIds[i] = id * 10;
+    snapshot.voteNums[i] = id + 1;
+    snapshot.pinnedRanks[i] = pinnedRank;
+    snapshot.eventNames[i] = eventName;
+    snapshot.keywords[i] = keyword;
+  }
+}
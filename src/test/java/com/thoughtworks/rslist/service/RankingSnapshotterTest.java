@@ -0,0 +1,35 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class RankingSnapshotterTest {
+  @Test
+  void shouldBeEnabledByShippedConfiguration() throws Exception {
+    RsEventRanking rsEventRanking = mock(RsEventRanking.class);
+    // only the main application.yml, without the test properties that switch snapshots off
+    List<PropertySource<?>> shipped =
+        new YamlPropertySourceLoader().load("application.yml", new ClassPathResource("application.yml"));
+    try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+      shipped.forEach(context.getEnvironment().getPropertySources()::addFirst);
+      context.getBeanFactory().registerSingleton("rsEventRanking", rsEventRanking);
+      context.getBeanFactory().registerSingleton("voteRepository", mock(VoteRepository.class));
+      context.register(RankingSnapshotter.class);
+      context.refresh();
+
+      RankingSnapshotter snapshotter = context.getBean(RankingSnapshotter.class);
+      assertTrue(snapshotter.isEnabled());
+      verify(rsEventRanking).setSnapshotter(snapshotter);
+    }
+  }
+}
@@ -0,0 +1,245 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RankDto;
+import com.thoughtworks.rslist.dto.RsEventSummaryDto;
+import com.thoughtworks.rslist.event.RankBoughtEvent;
+import com.thoughtworks.rslist.event.RsEventAddedEvent;
+import com.thoughtworks.rslist.event.RsEventVotedEvent;
+import com.thoughtworks.rslist.event.UserDeletedEvent;
+import com.thoughtworks.rslist.repository.RankRepository;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class RsEventRankingTest {
+  RsEventRanking rsEventRanking;
+
+  @Mock RsEventRepository rsEventRepository;
+  @Mock RankRepository rankRepository;
+  @Mock VoteRepository voteRepository;
+  @Mock PlatformTransactionManager transactionManager;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    rsEventRanking = new RsEventRanking(rsEventRepository, rankRepository, new SimpleMeterRegistry());
+    when(rsEventRepository.findAllSummaries())
+        .thenReturn(Arrays.asList(summary(2, "a", 3), summary(3, "b", 5), summary(4, "c", 1)));
+    when(rankRepository.findAll())
+        .thenReturn(Collections.singletonList(RankDto.builder().rankPos(1).rsEventId(4).price(5).build()));
+  }
+
+  @Test
+  void shouldLoadOnceAndPinBoughtRanks() {
+    assertEquals(Arrays.asList("c", "b", "a"), names(rsEventRanking.list()));
+    assertEquals(Arrays.asList("c", "b", "a"), names(rsEventRanking.list()));
+    verify(rsEventRepository, times(1)).findAllSummaries();
+    verify(rankRepository, times(1)).findAll();
+  }
+
+  @Test
+  void shouldReorderWhenVoted() {
+    rsEventRanking.list();
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(2, 1, 3, LocalDateTime.now()));
+    assertEquals(Arrays.asList("c", "a", "b"), names(rsEventRanking.list()));
+    assertEquals(6, rsEventRanking.list().get(1).getVoteNum());
+  }
+
+  @Test
+  void shouldReplaceEventWhenRankBoughtAgain() {
+    rsEventRanking.list();
+    rsEventRanking.onRankBought(new RankBoughtEvent(1, 10, 2, 4));
+    assertEquals(Arrays.asList("a", "b"), names(rsEventRanking.list()));
+  }
+
+  @Test
+  void shouldAppendPinsBeyondListSize() {
+    rsEventRanking.list();
+    rsEventRanking.onRankBought(new RankBoughtEvent(10, 1, 3, null));
+    assertEquals(Arrays.asList("c", "a", "b"), names(rsEventRanking.list()));
+  }
+
+  @Test
+  void shouldApplyAddedEventsAndDeletedUsers() {
+    rsEventRanking.list();
+    rsEventRanking.onRsEventAdded(new RsEventAddedEvent(5, "d", "keyword", 4, 2));
+    assertEquals(Arrays.asList("c", "b", "d", "a"), names(rsEventRanking.list()));
+    rsEventRanking.onUserDeleted(new UserDeletedEvent(1));
+    assertEquals(Collections.singletonList("d"), names(rsEventRanking.list()));
+  }
+
+  @Test
+  void shouldLookUpPositionsConsistentWithList() {
+    assertEquals("c", rsEventRanking.get(1).getEventName());
+    assertEquals("b", rsEventRanking.get(2).getEventName());
+    rsEventRanking.onRsEventAdded(new RsEventAddedEvent(5, "d", "keyword", 4, 2));
+    rsEventRanking.onRsEventAdded(new RsEventAddedEvent(6, "e", "keyword", 0, 2));
+    rsEventRanking.onRankBought(new RankBoughtEvent(3, 1, 2, null));
+    rsEventRanking.onRankBought(new RankBoughtEvent(9, 1, 6, null));
+    rsEventRanking.onRankBought(new RankBoughtEvent(20, 1, 3, null));
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(5, 1, 1, LocalDateTime.now()));
+
+    assertNull(rsEventRanking.get(0));
+    assertNull(rsEventRanking.get(6));
+    List<String> byIndex = Arrays.asList(rsEventRanking.get(1).getEventName(), rsEventRanking.get(2).getEventName(),
+        rsEventRanking.get(3).getEventName(), rsEventRanking.get(4).getEventName(),
+        rsEventRanking.get(5).getEventName());
+    assertEquals(Arrays.asList("c", "d", "a", "e", "b"), byIndex);
+    assertEquals(byIndex, names(rsEventRanking.list()));
+  }
+
+  @Test
+  void shouldKeepTopWindowWhenVotesStayBelowIt() {
+    rsEventRanking.setTopK(2);
+    rsEventRanking.list();
+    rsEventRanking.onRsEventAdded(new RsEventAddedEvent(5, "d", "keyword", 0, 2));
+    rsEventRanking.onRsEventAdded(new RsEventAddedEvent(6, "e", "keyword", 0, 2));
+    List<RsEvent> top = rsEventRanking.top(2);
+    assertEquals(Arrays.asList("c", "b"), names(top));
+
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(6, 1, 1, LocalDateTime.now()));
+    assertSame(top, rsEventRanking.top(2));
+    assertEquals(Collections.singletonList("c"), names(rsEventRanking.top(1)));
+
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(6, 1, 10, LocalDateTime.now()));
+    assertEquals(Arrays.asList("c", "e"), names(rsEventRanking.top(2)));
+    assertEquals(rsEventRanking.list().subList(0, 2), rsEventRanking.top(2));
+    assertEquals(5, rsEventRanking.top(10).size());
+    assertEquals(5, rsEventRanking.size());
+  }
+
+  @Test
+  void shouldOrderByDecayedVotesWithHotnessScorer() {
+    LocalDateTime now = LocalDateTime.now();
+    when(voteRepository.streamSince(any())).thenReturn(Stream.of(
+        new Vote(1, 3, now.minusDays(10), 5),
+        new Vote(1, 2, now.minusHours(1), 3)));
+    rsEventRanking.setScorer(new HotnessScorer(voteRepository, transactionManager, 24, 20));
+    assertEquals(Arrays.asList("c", "a", "b"), names(rsEventRanking.list()));
+    assertEquals(5, rsEventRanking.list().get(2).getVoteNum());
+
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(3, 1, 1, now));
+    assertEquals(Arrays.asList("c", "a", "b"), names(rsEventRanking.list()));
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(3, 1, 3, now));
+    assertEquals(Arrays.asList("c", "b", "a"), names(rsEventRanking.list()));
+    assertEquals(9, rsEventRanking.list().get(1).getVoteNum());
+  }
+
+  @Test
+  void shouldKeepOrderWhenHotnessScoresAreRescaled() {
+    LocalDateTime now = LocalDateTime.now();
+    when(voteRepository.streamSince(any())).thenReturn(Stream.of(new Vote(1, 2, now, 3)));
+    HotnessScorer scorer = new HotnessScorer(voteRepository, transactionManager, 1, 10);
+    scorer.setClock(fixedAt(now));
+    rsEventRanking.setScorer(scorer);
+    assertEquals(Arrays.asList("c", "a", "b"), names(rsEventRanking.list()));
+
+    // with a one hour half-life the exponent passes the rescaling threshold after about 18 days
+    scorer.setClock(fixedAt(now.plusDays(19)));
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(2, 1, 1, now.plusDays(19)));
+    assertEquals(Arrays.asList("c", "a", "b"), names(rsEventRanking.list()));
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(3, 1, 2, now.plusDays(19)));
+    assertEquals(Arrays.asList("c", "b", "a"), names(rsEventRanking.list()));
+    assertEquals(4, rsEventRanking.list().get(2).getVoteNum());
+  }
+
+  @Test
+  void shouldRestoreFromSnapshotAndReadOnlyWhatChangedSince() {
+    RankingSnapshotter snapshotter = mockSnapshotter(3L);
+    when(snapshotter.votedSince(any())).thenReturn(Collections.singleton(3));
+    when(rsEventRepository.findSummariesByIds(any())).thenReturn(Collections.singletonList(summary(3, "b", 6)));
+    rsEventRanking.setSnapshotter(snapshotter);
+
+    assertEquals(Arrays.asList("c", "b", "a"), names(rsEventRanking.list()));
+    assertEquals(6, rsEventRanking.list().get(1).getVoteNum());
+    verify(rsEventRepository, never()).findAllSummaries();
+  }
+
+  @Test
+  void shouldReloadWhenEventsWereDeletedSinceTheSnapshot() {
+    rsEventRanking.setSnapshotter(mockSnapshotter(2L));
+
+    assertEquals(Arrays.asList("c", "b", "a"), names(rsEventRanking.list()));
+    verify(rsEventRepository, times(1)).findAllSummaries();
+  }
+
+  @Test
+  void shouldCaptureUnpinnedEventsInOrderThenPinnedOnes() {
+    rsEventRanking.list();
+    RankingSnapshot captured = rsEventRanking.capture(7);
+
+    assertEquals(7, captured.voteWatermark);
+    assertArrayEquals(new int[] {3, 2, 4}, captured.ids);
+    assertArrayEquals(new int[] {0, 0, 1}, captured.pinnedRanks);
+  }
+
+  @Test
+  void shouldScoreFutureDatedVotesAsIfCastNow() {
+    LocalDateTime now = LocalDateTime.now();
+    when(voteRepository.streamSince(any())).thenReturn(Stream.of(new Vote(1, 2, now, 3)));
+    HotnessScorer scorer = new HotnessScorer(voteRepository, transactionManager, 1, 10);
+    scorer.setClock(fixedAt(now));
+    rsEventRanking.setScorer(scorer);
+    assertEquals(Arrays.asList("c", "a", "b"), names(rsEventRanking.list()));
+
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(2, 1, 1, LocalDateTime.of(2100, 1, 1, 0, 0)));
+    rsEventRanking.onRsEventVoted(new RsEventVotedEvent(3, 1, 5, now));
+    assertEquals(Arrays.asList("c", "b", "a"), names(rsEventRanking.list()));
+  }
+
+  private Clock fixedAt(LocalDateTime time) {
+    return Clock.fixed(time.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+  }
+
+  private RankingSnapshotter mockSnapshotter(long eventCount) {
+    RankingSnapshot saved = new RankingSnapshot(0, 10, 3);
+    int[][] rows = {{3, 4, 0}, {2, 3, 0}, {4, 1, 1}};
+    for (int i = 0; i < rows.length; i++) {
+      saved.ids[i] = rows[i][0];
+      saved.voteNums[i] = rows[i][1];
+      saved.pinnedRanks[i] = rows[i][2];
+      saved.userIds[i] = 1;
+      saved.eventNames[i] = String.valueOf((char) ('a' + rows[i][0] - 2));
+      saved.keywords[i] = "keyword";
+    }
+    RankingSnapshotter snapshotter = mock(RankingSnapshotter.class);
+    when(snapshotter.read()).thenReturn(saved);
+    when(rsEventRepository.count()).thenReturn(eventCount);
+    return snapshotter;
+  }
+
+  private RsEventSummaryDto summary(int id, String eventName, int voteNum) {
+    return new RsEventSummaryDto(id, eventName, "keyword", voteNum, 1);
+  }
+
+  private List<String> names(List<RsEvent> rsEvents) {
+    return rsEvents.stream().map(RsEvent::getEventName).collect(Collectors.toList());
+  }
+}
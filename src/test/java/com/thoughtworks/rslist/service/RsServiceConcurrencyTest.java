@@ -0,0 +1,156 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RankDto;
+import com.thoughtworks.rslist.dto.RankRecordDto;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.RankRecordRepository;
+import com.thoughtworks.rslist.repository.RankRepository;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "rs.vote.mode=atomic")
+class RsServiceConcurrencyTest {
+  @Autowired RsService rsService;
+  @Autowired UserRepository userRepository;
+  @Autowired RsEventRepository rsEventRepository;
+  @Autowired VoteRepository voteRepository;
+  @Autowired RankRepository rankRepository;
+  @Autowired RankRecordRepository rankRecordRepository;
+
+  @AfterEach
+  void tearDown() {
+    voteRepository.deleteAll();
+    rsEventRepository.deleteAll();
+    userRepository.deleteAll();
+    rankRecordRepository.deleteAll();
+    rankRepository.deleteAll();
+  }
+
+  @Test
+  void shouldCountConcurrentVotesExactly() throws Exception {
+    int users = 25;
+    int balance = 80;
+    int votesPerUser = 100;
+    List<UserDto> voters = new ArrayList<>();
+    for (int i = 0; i < users; i++) {
+      voters.add(userRepository.save(UserDto.builder().userName("user" + i).phone("18888888888").age(19)
+          .voteNum(balance).build()));
+    }
+    RsEventDto rsEventDto = rsEventRepository.save(
+        RsEventDto.builder().eventName("hot event").keyword("keyword").voteNum(0).user(voters.get(0)).build());
+
+    AtomicInteger accepted = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int round = 0; round < votesPerUser; round++) {
+      for (UserDto voter : voters) {
+        tasks.add(() -> {
+          try {
+            rsService.vote(Vote.builder().userId(voter.getId()).voteNum(1).time(LocalDateTime.now()).build(),
+                rsEventDto.getId());
+            accepted.incrementAndGet();
+          } catch (RuntimeException e) {
+            rejected.incrementAndGet();
+          }
+          return null;
+        });
+      }
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    try {
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(users * balance, accepted.get());
+    assertEquals(users * (votesPerUser - balance), rejected.get());
+    assertEquals(users * balance, rsEventRepository.findById(rsEventDto.getId()).get().getVoteNum());
+    assertEquals(users * balance, voteRepository.findAll().size());
+    for (UserDto voter : voters) {
+      assertEquals(0, userRepository.findById(voter.getId()).get().getVoteNum());
+    }
+  }
+
+  @Test
+  void shouldKeepOneWinnerPerRankUnderConcurrentBids() throws Exception {
+    int ranks = 3;
+    int bidders = 60;
+    UserDto owner = userRepository.save(UserDto.builder().userName("owner").phone("18888888888").age(19)
+        .voteNum(10).build());
+    List<Integer> prices = new ArrayList<>();
+    for (int i = 1; i <= bidders; i++) {
+      prices.add(i);
+    }
+    Collections.shuffle(prices);
+    int[] highestBid = new int[ranks + 1];
+    AtomicInteger lost = new AtomicInteger();
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int i = 0; i < bidders; i++) {
+      RsEventDto bidder = rsEventRepository.save(
+          RsEventDto.builder().eventName("bidder" + i).keyword("keyword").voteNum(0).user(owner).build());
+      Trade trade = new Trade(prices.get(i), i % ranks + 1);
+      highestBid[trade.getRank()] = Math.max(highestBid[trade.getRank()], trade.getAmount());
+      tasks.add(() -> {
+        try {
+          rsService.buy(trade, bidder.getId());
+        } catch (RuntimeException e) {
+          lost.incrementAndGet();
+        }
+        return null;
+      });
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    try {
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    List<RankDto> rankDtos = rankRepository.findAll();
+    List<RankRecordDto> records = rankRecordRepository.findAll();
+    assertEquals(ranks, rankDtos.size());
+    assertEquals(bidders - records.size(), lost.get());
+    assertEquals(bidders - (records.size() - ranks), rsEventRepository.findAll().size());
+    for (RankDto rankDto : rankDtos) {
+      List<RankRecordDto> history = records.stream()
+          .filter(record -> record.getRankPos() == rankDto.getRankPos())
+          .sorted(Comparator.comparing(RankRecordDto::getId))
+          .collect(Collectors.toList());
+      for (int i = 1; i < history.size(); i++) {
+        assertTrue(history.get(i).getPrice() > history.get(i - 1).getPrice());
+      }
+      RankRecordDto last = history.get(history.size() - 1);
+      assertEquals(rankDto.getPrice(), last.getPrice().intValue());
+      assertEquals(rankDto.getRsEventId(), last.getRsEventId().intValue());
+      assertEquals(highestBid[rankDto.getRankPos()], rankDto.getPrice());
+    }
+  }
+}
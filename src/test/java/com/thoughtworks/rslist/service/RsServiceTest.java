@@ -3,14 +3,23 @@ package com.thoughtworks.rslist.service;
 import com.thoughtworks.rslist.domain.Trade;
 import com.thoughtworks.rslist.domain.Vote;
 import com.thoughtworks.rslist.dto.*;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.exception.VoteRejectedException;
 import com.thoughtworks.rslist.repository.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -27,13 +36,24 @@ class RsServiceTest {
   @Mock
   RankRepository rankRepository;
   @Mock RankRecordRepository rankRecordRepository;
+  @Mock ApplicationEventPublisher eventPublisher;
+  @Mock VoteWriteBehindBuffer voteWriteBehindBuffer;
+  @Mock PlatformTransactionManager transactionManager;
+  MeterRegistry meterRegistry;
   LocalDateTime localDateTime;
   Vote vote;
 
   @BeforeEach
   void setUp() {
     initMocks(this);
-    rsService = new RsService(rsEventRepository, userRepository, voteRepository, rankRepository, rankRecordRepository);
+    HistoryWriter historyWriter = new HistoryWriter(voteRepository, rankRecordRepository, transactionManager, "sync",
+            16, 10, 50, 20);
+    meterRegistry = new SimpleMeterRegistry();
+    RankAuction rankAuction = new RankAuction(rsEventRepository, rankRepository, historyWriter, eventPublisher,
+            transactionManager, meterRegistry);
+    UserCache userCache = new UserCache(userRepository, 100, 60, meterRegistry);
+    rsService = new RsService(rsEventRepository, userRepository, historyWriter, eventPublisher, voteWriteBehindBuffer,
+            rankAuction, userCache, meterRegistry);
     localDateTime = LocalDateTime.now();
     vote = Vote.builder().voteNum(2).rsEventId(1).time(localDateTime).userId(1).build();
   }
@@ -87,6 +107,28 @@ class RsServiceTest {
     when(rankRepository.findRankDtoByRankPos(anyInt())).thenReturn(Optional.of(rankDto));
     assertThrows(Exception.class, () -> rsService.buy(trade, buyRsEventId));
   }
+  @Test
+  void shouldRetryBidWhenRankPositionWasTakenConcurrently() {
+    when(rankRepository.findRankDtoByRankPos(anyInt())).thenReturn(Optional.empty());
+    when(rankRepository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate",
+        new ConstraintViolationException("duplicate", null, "uk_rank_rank_pos")));
+
+    assertThrows(RequestNotValidException.class, () -> rsService.buy(new Trade(5, 1), 1));
+    verify(rankRepository, times(RankAuction.MAX_ATTEMPTS)).findRankDtoByRankPos(1);
+  }
+
+  @Test
+  void shouldNotRetryBidOnOtherIntegrityViolations() {
+    RankDto rankDto = RankDto.builder().rankPos(1).price(5).rsEventId(1).build();
+    when(rankRepository.findRankDtoByRankPos(anyInt())).thenReturn(Optional.of(rankDto));
+    doThrow(new DataIntegrityViolationException("referenced",
+        new ConstraintViolationException("referenced", null, "fk_vote_rs_event")))
+        .when(rsEventRepository).deleteById(1);
+
+    assertThrows(DataIntegrityViolationException.class, () -> rsService.buy(new Trade(10, 1), 2));
+    verify(rsEventRepository, times(1)).deleteById(1);
+  }
+
   @Test
   void shouldVoteSuccess() {
     // given
@@ -111,7 +153,8 @@ class RsServiceTest {
             .build();
 
     when(rsEventRepository.findById(anyInt())).thenReturn(Optional.of(rsEventDto));
-    when(userRepository.findById(anyInt())).thenReturn(Optional.of(userDto));
+    when(userRepository.findSummaryById(anyInt())).thenReturn(Optional.of(new UserSummaryDto(1, "xiaoli", 5)));
+    when(userRepository.decreaseVoteNumIfEnough(1, 2)).thenReturn(1);
     // when
     rsService.vote(vote, 1);
     // then
@@ -120,18 +163,33 @@ class RsServiceTest {
             VoteDto.builder()
                 .num(2)
                 .localDateTime(localDateTime)
-                .user(userDto)
+                .user(UserDto.builder().id(1).build())
                 .rsEvent(rsEventDto)
                 .build());
-    verify(userRepository).save(userDto);
+    verify(userRepository).decreaseVoteNumIfEnough(1, 2);
+    verify(userRepository, never()).decreaseVoteNum(anyInt(), anyInt());
+    verify(userRepository, never()).findById(anyInt());
     verify(rsEventRepository).save(rsEventDto);
   }
 
+  @Test
+  void shouldRejectVoteWhenCachedBalanceIsStale() {
+    RsEventDto rsEventDto = RsEventDto.builder().id(1).voteNum(2).build();
+    when(rsEventRepository.findById(anyInt())).thenReturn(Optional.of(rsEventDto));
+    when(userRepository.findSummaryById(anyInt())).thenReturn(Optional.of(new UserSummaryDto(1, "xiaoli", 5)));
+    when(userRepository.decreaseVoteNumIfEnough(1, 2)).thenReturn(0);
+
+    VoteRejectedException exception = assertThrows(VoteRejectedException.class, () -> rsService.vote(vote, 1));
+    assertEquals(VoteRejectedException.INSUFFICIENT_VOTES, exception.getReason());
+    verify(voteRepository, never()).save(any());
+    verify(rsEventRepository, never()).save(any());
+  }
+
   @Test
   void shouldThrowExceptionWhenUserNotExist() {
     // given
     when(rsEventRepository.findById(anyInt())).thenReturn(Optional.empty());
-    when(userRepository.findById(anyInt())).thenReturn(Optional.empty());
+    when(userRepository.findSummaryById(anyInt())).thenReturn(Optional.empty());
     //when&then
     assertThrows(
         RuntimeException.class,
@@ -139,4 +197,39 @@ class RsServiceTest {
           rsService.vote(vote, 1);
         });
   }
+
+  @Test
+  void shouldVoteWithConditionalUpdatesInAtomicMode() {
+    rsService.setVoteMode("atomic");
+    when(userRepository.decreaseVoteNumIfEnough(1, 2)).thenReturn(1);
+    when(rsEventRepository.increaseVoteNum(1, 2)).thenReturn(1);
+
+    rsService.vote(vote, 1);
+
+    verify(userRepository).decreaseVoteNumIfEnough(1, 2);
+    verify(rsEventRepository).increaseVoteNum(1, 2);
+    verify(voteRepository).save(any());
+    verify(userRepository, never()).findById(anyInt());
+    verify(rsEventRepository, never()).findById(anyInt());
+  }
+
+  @Test
+  void shouldRejectVoteInAtomicModeWhenBalanceIsNotEnough() {
+    rsService.setVoteMode("atomic");
+    when(userRepository.decreaseVoteNumIfEnough(1, 2)).thenReturn(0);
+
+    assertThrows(RuntimeException.class, () -> rsService.vote(vote, 1));
+    verify(rsEventRepository, never()).increaseVoteNum(anyInt(), anyInt());
+    verify(voteRepository, never()).save(any());
+  }
+
+  @Test
+  void shouldRejectVoteInAtomicModeWhenEventNotExist() {
+    rsService.setVoteMode("atomic");
+    when(userRepository.decreaseVoteNumIfEnough(1, 2)).thenReturn(1);
+    when(rsEventRepository.increaseVoteNum(1, 2)).thenReturn(0);
+
+    assertThrows(RuntimeException.class, () -> rsService.vote(vote, 1));
+    verify(voteRepository, never()).save(any());
+  }
 }
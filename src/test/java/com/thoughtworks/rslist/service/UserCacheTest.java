@@ -0,0 +1,88 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.UserSummaryDto;
+import com.thoughtworks.rslist.event.RsEventVotedEvent;
+import com.thoughtworks.rslist.event.UserDeletedEvent;
+import com.thoughtworks.rslist.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class UserCacheTest {
+  @Mock UserRepository userRepository;
+  MeterRegistry meterRegistry;
+  UserCache userCache;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+    userCache = new UserCache(userRepository, 100, 60, meterRegistry);
+  }
+
+  @Test
+  void shouldLoadUserOnceAndServeRepeatedLookupsFromCache() {
+    when(userRepository.findSummaryById(1)).thenReturn(Optional.of(new UserSummaryDto(1, "xiaoli", 10)));
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals(10, userCache.find(1).get().getVoteNum());
+    }
+
+    verify(userRepository, times(1)).findSummaryById(1);
+    assertEquals(4, userCache.stats().hitCount());
+    assertEquals(1, userCache.stats().missCount());
+    assertEquals(4.0, meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+        .functionCounter().count());
+  }
+
+  @Test
+  void shouldCacheUnknownUsersUntilInvalidated() {
+    when(userRepository.findSummaryById(1)).thenReturn(Optional.empty());
+
+    assertFalse(userCache.exists(1));
+    assertFalse(userCache.exists(1));
+    verify(userRepository, times(1)).findSummaryById(1);
+
+    when(userRepository.findSummaryById(1)).thenReturn(Optional.of(new UserSummaryDto(1, "xiaoli", 10)));
+    userCache.invalidate(1);
+
+    assertTrue(userCache.exists(1));
+  }
+
+  @Test
+  void shouldApplyVotesToCachedBalanceWithoutReloading() {
+    when(userRepository.findSummaryById(1)).thenReturn(Optional.of(new UserSummaryDto(1, "xiaoli", 10)));
+    userCache.find(1);
+
+    userCache.onRsEventVoted(new RsEventVotedEvent(3, 1, 4, LocalDateTime.now()));
+    userCache.onRsEventVoted(new RsEventVotedEvent(3, 2, 4, LocalDateTime.now()));
+
+    assertEquals(6, userCache.find(1).get().getVoteNum());
+    verify(userRepository, times(1)).findSummaryById(1);
+  }
+
+  @Test
+  void shouldEvictDeletedUser() {
+    when(userRepository.findSummaryById(1)).thenReturn(Optional.of(new UserSummaryDto(1, "xiaoli", 10)));
+    userCache.find(1);
+
+    userCache.onUserDeleted(new UserDeletedEvent(1));
+    when(userRepository.findSummaryById(1)).thenReturn(Optional.empty());
+
+    assertFalse(userCache.exists(1));
+    verify(userRepository, times(2)).findSummaryById(1);
+  }
+}
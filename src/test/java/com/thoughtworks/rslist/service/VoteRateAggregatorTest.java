@@ -0,0 +1,114 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.domain.VoteRate;
+import com.thoughtworks.rslist.event.RsEventVotedEvent;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class VoteRateAggregatorTest {
+  static final LocalDateTime NOW = LocalDateTime.of(2020, 9, 1, 12, 30, 10);
+
+  VoteRateAggregator aggregator;
+
+  @Mock VoteRepository voteRepository;
+  @Mock PlatformTransactionManager transactionManager;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    aggregator = new VoteRateAggregator(voteRepository, transactionManager);
+    setNow(NOW);
+    when(voteRepository.streamSince(any())).thenReturn(Stream.of(
+        new Vote(1, 1, NOW.minusMinutes(50), 4),
+        new Vote(1, 1, NOW.minusMinutes(3), 2),
+        new Vote(1, 2, NOW.minusSeconds(5), 1)));
+  }
+
+  @Test
+  void shouldLoadLastHourOnceAndCountWindows() {
+    assertEquals(new VoteRate(1, 0, 2, 6), aggregator.rate(1));
+    assertEquals(new VoteRate(2, 1, 1, 1), aggregator.rate(2));
+    assertEquals(new VoteRate(3, 0, 0, 0), aggregator.rate(3));
+    verify(voteRepository, times(1)).streamSince(NOW.minusMinutes(60));
+  }
+
+  @Test
+  void shouldAddVotesAndAgeOutOldBuckets() {
+    aggregator.rate(1);
+    aggregator.onRsEventVoted(new RsEventVotedEvent(1, 1, 3, NOW));
+    assertEquals(new VoteRate(1, 3, 5, 9), aggregator.rate(1));
+
+    setNow(NOW.plusMinutes(15));
+    assertEquals(new VoteRate(1, 0, 0, 5), aggregator.rate(1));
+
+    aggregator.onRsEventVoted(new RsEventVotedEvent(1, 1, 1, NOW.plusMinutes(15)));
+    setNow(NOW.plusMinutes(70));
+    assertEquals(new VoteRate(1, 0, 0, 1), aggregator.rate(1));
+    setNow(NOW.plusMinutes(80));
+    assertEquals(new VoteRate(1, 0, 0, 0), aggregator.rate(1));
+  }
+
+  @Test
+  void shouldListTrendingEventsForWindow() {
+    aggregator.onRsEventVoted(new RsEventVotedEvent(3, 1, 1, NOW));
+    aggregator.rate(1);
+    aggregator.onRsEventVoted(new RsEventVotedEvent(3, 1, 5, NOW));
+
+    assertEquals(Arrays.asList(3, 2), ids(aggregator.trending(1, 10)));
+    assertEquals(Arrays.asList(3, 1, 2), ids(aggregator.trending(5, 10)));
+    assertEquals(Arrays.asList(1, 3), ids(aggregator.trending(60, 2)));
+    assertThrows(RequestNotValidException.class, () -> aggregator.trending(61, 10));
+  }
+
+  @Test
+  void shouldCountFutureDatedVotesAsCastNow() {
+    aggregator.rate(1);
+    aggregator.onRsEventVoted(new RsEventVotedEvent(1, 1, 7, LocalDateTime.of(2100, 1, 1, 0, 0)));
+    aggregator.onRsEventVoted(new RsEventVotedEvent(1, 1, 3, NOW));
+
+    assertEquals(new VoteRate(1, 10, 12, 16), aggregator.rate(1));
+  }
+
+  @Test
+  void shouldFreeRowsWhoseVotesAgedOut() {
+    aggregator.rate(1);
+    assertEquals(2, aggregator.rowCount());
+
+    setNow(NOW.plusMinutes(30));
+    aggregator.onRsEventVoted(new RsEventVotedEvent(2, 1, 1, NOW.plusMinutes(30)));
+    setNow(NOW.plusMinutes(65));
+    assertEquals(Collections.singletonList(2), ids(aggregator.trending(60, 10)));
+    assertEquals(1, aggregator.rowCount());
+    assertEquals(new VoteRate(2, 0, 0, 1), aggregator.rate(2));
+  }
+
+  private void setNow(LocalDateTime now) {
+    aggregator.setClock(Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+  }
+
+  private List<Integer> ids(List<VoteRate> rates) {
+    return rates.stream().map(VoteRate::getRsEventId).collect(Collectors.toList());
+  }
+}
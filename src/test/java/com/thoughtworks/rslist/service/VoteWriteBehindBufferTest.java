@@ -0,0 +1,147 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteJournalCheckpointDto;
+import com.thoughtworks.rslist.event.UserDeletedEvent;
+import com.thoughtworks.rslist.exception.VoteRejectedException;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteJournalCheckpointRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class VoteWriteBehindBufferTest {
+  @Mock RsEventRepository rsEventRepository;
+  @Mock UserRepository userRepository;
+  @Mock VoteRepository voteRepository;
+  @Mock VoteJournalCheckpointRepository checkpointRepository;
+  @Mock PlatformTransactionManager transactionManager;
+  @TempDir Path journalDir;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    when(rsEventRepository.existsById(anyInt())).thenReturn(true);
+    when(rsEventRepository.findExistingIds(any())).thenReturn(Arrays.asList(1, 2));
+    when(userRepository.findExistingIds(any())).thenReturn(Collections.singletonList(1));
+    when(userRepository.findById(anyInt())).thenReturn(Optional.of(UserDto.builder().id(1).voteNum(5).build()));
+    when(checkpointRepository.findById(anyString())).thenReturn(Optional.empty());
+  }
+
+  @Test
+  void shouldAcknowledgeFromMemoryAndFlushAggregatedDeltas() throws Exception {
+    VoteWriteBehindBuffer buffer = newBuffer();
+    buffer.vote(vote(2), 1);
+    buffer.vote(vote(1), 1);
+    buffer.vote(vote(1), 2);
+    assertThrows(RuntimeException.class, () -> buffer.vote(vote(2), 1));
+    assertEquals(3, buffer.pendingVoteNum(1));
+    verify(rsEventRepository, never()).increaseVoteNum(anyInt(), anyInt());
+
+    buffer.flush();
+
+    verify(rsEventRepository).increaseVoteNum(1, 3);
+    verify(rsEventRepository).increaseVoteNum(2, 1);
+    verify(userRepository).decreaseVoteNum(1, 4);
+    verify(voteRepository).saveAll(any());
+    verify(checkpointRepository).save(new VoteJournalCheckpointDto("rs-list", 1));
+    assertEquals(0, buffer.pendingVoteNum(1));
+    assertEquals(1, segmentCount());
+  }
+
+  @Test
+  void shouldReplayJournalAfterCrash() throws Exception {
+    VoteWriteBehindBuffer crashed = newBuffer();
+    crashed.vote(vote(2), 1);
+    crashed.vote(vote(3), 2);
+
+    newBuffer();
+
+    verify(rsEventRepository).increaseVoteNum(1, 2);
+    verify(rsEventRepository).increaseVoteNum(2, 3);
+    verify(userRepository).decreaseVoteNum(1, 5);
+    verify(checkpointRepository).save(new VoteJournalCheckpointDto("rs-list", 1));
+  }
+
+  @Test
+  void shouldNotReplaySegmentsAlreadyFlushed() throws Exception {
+    VoteWriteBehindBuffer crashed = newBuffer();
+    crashed.vote(vote(2), 1);
+    when(checkpointRepository.findById(anyString()))
+        .thenReturn(Optional.of(new VoteJournalCheckpointDto("rs-list", 1)));
+
+    newBuffer();
+
+    verify(rsEventRepository, never()).increaseVoteNum(anyInt(), anyInt());
+    verify(voteRepository, times(0)).saveAll(any());
+    assertEquals(1, segmentCount());
+  }
+
+  @Test
+  void shouldDropVotesOfDeletedUserInsteadOfRetryingForever() throws Exception {
+    VoteWriteBehindBuffer crashed = newBuffer();
+    crashed.vote(vote(2), 1);
+    crashed.onUserDeleted(new UserDeletedEvent(1));
+    assertEquals(0, crashed.pendingVoteNum(1));
+    when(userRepository.findExistingIds(any())).thenReturn(Collections.emptyList());
+
+    newBuffer();
+
+    verify(rsEventRepository, never()).increaseVoteNum(anyInt(), anyInt());
+    verify(userRepository, never()).decreaseVoteNum(anyInt(), anyInt());
+    verify(checkpointRepository).save(new VoteJournalCheckpointDto("rs-list", 1));
+    assertEquals(1, segmentCount());
+  }
+
+  @Test
+  void shouldRefundVotesForDeletedEventsOnceCommitted() throws Exception {
+    VoteWriteBehindBuffer buffer = newBuffer();
+    buffer.vote(vote(4), 3);
+    buffer.flush();
+
+    verify(rsEventRepository, never()).increaseVoteNum(anyInt(), anyInt());
+    buffer.vote(vote(5), 1);
+    assertThrows(VoteRejectedException.class, () -> buffer.vote(vote(1), 1));
+  }
+
+  private VoteWriteBehindBuffer newBuffer() throws Exception {
+    VoteWriteBehindBuffer buffer = new VoteWriteBehindBuffer(rsEventRepository, userRepository, voteRepository,
+        checkpointRepository, transactionManager, "write-behind", journalDir.toString(), "rs-list");
+    buffer.start();
+    return buffer;
+  }
+
+  private Vote vote(int voteNum) {
+    return Vote.builder().userId(1).voteNum(voteNum).time(LocalDateTime.now()).build();
+  }
+
+  private long segmentCount() throws Exception {
+    try (Stream<Path> files = Files.list(journalDir)) {
+      return files.count();
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.thoughtworks.rslist.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntIntMapTest {
+
+  @Test
+  void shouldPutGetAndRemoveIncludingZeroKey() {
+    IntIntMap map = new IntIntMap(-1);
+    assertEquals(-1, map.put(7, 70));
+    assertEquals(-1, map.put(0, 5));
+    assertEquals(70, map.put(7, 71));
+
+    assertEquals(2, map.size());
+    assertEquals(71, map.get(7));
+    assertEquals(5, map.get(0));
+    assertEquals(-1, map.get(8));
+    assertTrue(map.containsKey(0));
+    assertFalse(map.containsKey(8));
+
+    assertEquals(5, map.remove(0));
+    assertEquals(-1, map.remove(0));
+    assertEquals(71, map.remove(7));
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  void shouldMatchHashMapUnderRandomUpdates() {
+    Random random = new Random(42);
+    IntIntMap map = new IntIntMap(-1);
+    Map<Integer, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 200_000; i++) {
+      int key = random.nextInt(3000) - 100;
+      int value = random.nextInt(1000);
+      switch (random.nextInt(3)) {
+        case 0:
+          assertEquals(expected.getOrDefault(key, -1).intValue(), map.put(key, value));
+          expected.put(key, value);
+          break;
+        case 1:
+          assertEquals(expected.getOrDefault(key, -1).intValue(), map.remove(key));
+          expected.remove(key);
+          break;
+        default:
+          assertEquals(expected.getOrDefault(key, -1).intValue(), map.get(key));
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    map.clear();
+    assertEquals(0, map.size());
+    assertEquals(-1, map.get(expected.keySet().iterator().next()));
+  }
+}
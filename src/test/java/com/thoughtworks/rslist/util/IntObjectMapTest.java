@@ -0,0 +1,50 @@
+package com.thoughtworks.rslist.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntObjectMapTest {
+
+  @Test
+  void shouldKeepEntriesAcrossRehashAndRemovals() {
+    IntObjectMap<String> map = new IntObjectMap<>();
+    for (int key = 0; key < 1000; key++) {
+      assertNull(map.put(key, "v" + key));
+    }
+    for (int key = 0; key < 1000; key += 2) {
+      assertEquals("v" + key, map.remove(key));
+    }
+
+    assertEquals(500, map.size());
+    assertNull(map.get(0));
+    assertNull(map.get(998));
+    assertEquals("v999", map.get(999));
+    assertTrue(map.containsKey(1));
+    assertThrows(NullPointerException.class, () -> map.put(1, null));
+  }
+
+  @Test
+  void shouldIterateAllValuesIncludingZeroKey() {
+    IntObjectMap<String> map = new IntObjectMap<>();
+    map.put(0, "zero");
+    map.put(-3, "minus three");
+    map.put(42, "forty-two");
+
+    List<String> values = new ArrayList<>();
+    map.values().forEach(values::add);
+    Collections.sort(values);
+    assertEquals(Arrays.asList("forty-two", "minus three", "zero"), values);
+
+    map.clear();
+    assertEquals(false, map.values().iterator().hasNext());
+  }
+}
@@ -0,0 +1,65 @@
+package com.thoughtworks.rslist.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderStatisticTreeTest {
+
+  @Test
+  void shouldAnswerIndexAndRankQueries() {
+    OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+    assertTrue(tree.add(30));
+    assertTrue(tree.add(10));
+    assertTrue(tree.add(20));
+    assertFalse(tree.add(20));
+
+    assertEquals(3, tree.size());
+    assertEquals(10, tree.get(0).intValue());
+    assertEquals(30, tree.get(2).intValue());
+    assertEquals(1, tree.rank(20));
+    assertEquals(2, tree.rank(25));
+    assertThrows(IndexOutOfBoundsException.class, () -> tree.get(3));
+  }
+
+  @Test
+  void shouldMatchSortedListUnderRandomUpdates() {
+    Random random = new Random(42);
+    OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.reverseOrder());
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      int value = random.nextInt(1000);
+      if (random.nextBoolean()) {
+        assertEquals(!expected.contains(value), tree.add(value));
+        if (!expected.contains(value)) {
+          expected.add(value);
+        }
+      } else {
+        assertEquals(expected.remove(Integer.valueOf(value)), tree.remove(value));
+      }
+      if (i % 100 == 0) {
+        expected.sort(Comparator.reverseOrder());
+        List<Integer> actual = new ArrayList<>();
+        tree.forEach(actual::add);
+        assertEquals(expected, actual);
+        for (int index = 0; index < expected.size(); index++) {
+          assertEquals(expected.get(index), tree.get(index));
+        }
+        int probe = random.nextInt(1000);
+        int before = (int) expected.stream().filter(v -> v > probe).count();
+        assertEquals(before, tree.rank(probe));
+      }
+    }
+    Collections.sort(expected);
+    assertEquals(expected.size(), tree.size());
+  }
+}
@@ -0,0 +1,101 @@
+package com.thoughtworks.rslist.web;
+
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.service.RsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "rs.web.execution=async",
+      "rs.web.bulkhead.buy.max-concurrent=1",
+      "rs.web.bulkhead.buy.max-queued=0"
+    })
+class BulkheadsTest {
+  @Autowired TestRestTemplate restTemplate;
+  @Autowired Bulkheads bulkheads;
+  @MockBean RsService rsService;
+  CountDownLatch release = new CountDownLatch(1);
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+  }
+
+  @Test
+  void shouldKeepServingReadsWhileBuyBulkheadIsSaturated() throws Exception {
+    CountDownLatch entered = new CountDownLatch(1);
+    AtomicReference<String> buyThread = new AtomicReference<>();
+    doAnswer(invocation -> {
+      buyThread.set(Thread.currentThread().getName());
+      entered.countDown();
+      release.await(10, TimeUnit.SECONDS);
+      return null;
+    }).when(rsService).buy(any(), anyInt());
+
+    CompletableFuture<ResponseEntity<String>> stalled = CompletableFuture.supplyAsync(() -> buy(1));
+    assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, buy(2).getStatusCode());
+    assertEquals(HttpStatus.OK, restTemplate.getForEntity("/rs/list", String.class).getStatusCode());
+
+    release.countDown();
+    assertEquals(HttpStatus.OK, stalled.get(10, TimeUnit.SECONDS).getStatusCode());
+    assertTrue(buyThread.get().startsWith("bulkhead-buy-"));
+  }
+
+  @Test
+  void shouldHandleResultsAndErrorsOfOffloadedHandlersAsUsual() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    ResponseEntity<String> registered = restTemplate.postForEntity("/user",
+        new HttpEntity<>("{\"userName\":\"idolice\",\"age\":19,\"phone\":\"18888888888\"}", headers),
+        String.class);
+    ResponseEntity<String> invalid = restTemplate.postForEntity("/user",
+        new HttpEntity<>("{\"userName\":\"idolice88\",\"age\":19,\"phone\":\"18888888888\"}", headers),
+        String.class);
+    ResponseEntity<String> missing = restTemplate.getForEntity("/rs/999", String.class);
+
+    assertEquals(HttpStatus.OK, registered.getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, missing.getStatusCode());
+    assertEquals("{\"error\":\"invalid index\"}", missing.getBody());
+  }
+
+  @Test
+  void shouldLeaveAsynchronousEndpointsOnTheContainerThread() {
+    assertNull(bulkheads.forRequest(new MockHttpServletRequest("GET", "/reactive/voteRecord")));
+    assertNull(bulkheads.forRequest(new MockHttpServletRequest("GET", "/rs/list/stream")));
+    assertNull(bulkheads.forRequest(new MockHttpServletRequest("GET", "/rs/list/subscribe")));
+    assertNull(bulkheads.forRequest(new MockHttpServletRequest("GET", "/actuator/health")));
+    assertNotNull(bulkheads.forRequest(new MockHttpServletRequest("GET", "/rs/list")));
+  }
+
+  private ResponseEntity<String> buy(int rsEventId) {
+    return restTemplate.postForEntity("/rs/buy/" + rsEventId, new Trade(10, 1), String.class);
+  }
+}
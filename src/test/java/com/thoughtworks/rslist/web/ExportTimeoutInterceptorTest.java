@@ -0,0 +1,53 @@
+package com.thoughtworks.rslist.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExportTimeoutInterceptorTest {
+  ExportTimeoutInterceptor interceptor = new ExportTimeoutInterceptor(1800000L);
+
+  @Test
+  void should_extend_timeout_of_exports() {
+    AsyncWebRequest request = asyncRequest("/rs/list/stream");
+
+    interceptor.beforeConcurrentHandling(request, () -> null);
+
+    verify(request).setTimeout(1800000L);
+  }
+
+  @Test
+  void should_keep_default_timeout_of_other_requests() {
+    AsyncWebRequest request = asyncRequest("/rs/list/subscribe");
+
+    interceptor.beforeConcurrentHandling(request, () -> null);
+
+    verify(request, never()).setTimeout(1800000L);
+  }
+
+  @Test
+  void should_match_path_below_context_path() {
+    MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/stream/rs/list");
+    servletRequest.setContextPath("/stream");
+    AsyncWebRequest request = mock(AsyncWebRequest.class);
+    when(request.getNativeRequest(HttpServletRequest.class)).thenReturn(servletRequest);
+
+    interceptor.beforeConcurrentHandling(request, () -> null);
+
+    verify(request, never()).setTimeout(1800000L);
+  }
+
+  private AsyncWebRequest asyncRequest(String path) {
+    AsyncWebRequest request = mock(AsyncWebRequest.class);
+    when(request.getNativeRequest(HttpServletRequest.class))
+        .thenReturn(new MockHttpServletRequest("GET", path));
+    return request;
+  }
+}